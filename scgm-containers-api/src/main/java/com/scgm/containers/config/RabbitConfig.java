@@ -1,19 +1,67 @@
 package com.scgm.containers.config;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aopalliance.aop.Advice;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
+import org.springframework.amqp.rabbit.retry.RejectAndDontRequeueRecoverer;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.amqp.support.converter.MessageConverter;
 
 @Configuration
 public class RabbitConfig {
+
+    public static final String SENSOR_DATA_QUEUE = "sensor.data.queue";
+    public static final String SENSOR_PARTITION_EXCHANGE = "sensor.data.partition.exchange";
+    public static final String SENSOR_PARTITION_DEAD_LETTER_EXCHANGE = "sensor.data.partition.dlx";
+    public static final String SENSOR_PARTITION_DEAD_LETTER_QUEUE = "sensor.data.partition.dlq";
+    public static final String CONTAINER_LEVEL_EXCHANGE = "container.level.changes.exchange";
+
+    @Value("${scgm.sensor.batch.enabled:true}")
+    private Boolean batchEnabled;
+
+    @Value("${scgm.sensor.batch.size:500}")
+    private Integer batchSize;
+
+    @Value("${scgm.sensor.batch.receive-timeout-ms:1000}")
+    private Long batchReceiveTimeout;
+
+    @Value("${scgm.sensor.listener.partitions:4}")
+    private Integer partitions;
+
+    @Value("${scgm.sensor.listener.prefetch:250}")
+    private Integer prefetch;
+
+    @Value("${scgm.sensor.listener.virtual-threads:false}")
+    private Boolean virtualThreads;
+
+    @Value("${scgm.sensor.listener.retry.max-attempts:3}")
+    private Integer retryMaxAttempts;
+
+    @Value("${scgm.sensor.listener.retry.initial-interval-ms:1000}")
+    private Long retryInitialInterval;
+
+    @Value("${scgm.sensor.listener.retry.max-interval-ms:10000}")
+    private Long retryMaxInterval;
+
+    public static String partitionQueueName(int partition) {
+        return SENSOR_DATA_QUEUE + ".partition." + partition;
+    }
     
     @Bean
     public Queue authQueue() {
-        return new Queue("sensor.data.queue", true);
+        return new Queue(SENSOR_DATA_QUEUE, true);
     }
     
     @Bean
@@ -23,7 +71,50 @@ public class RabbitConfig {
     
     @Bean
     public Binding authQueueBinding() {
-        return BindingBuilder.bind(authQueue()).to(accountsExchange()).with("sensor.data.queue");
+        return BindingBuilder.bind(authQueue()).to(accountsExchange()).with(SENSOR_DATA_QUEUE);
+    }
+
+    // One queue per partition. Single active consumer keeps each partition consumed by exactly one
+    // thread across all the instances, so the readings of a container are applied in order.
+    // Messages rejected by the partition listeners go to one dead letter queue shared by all partitions.
+    @Bean
+    public Declarables sensorPartitionDeclarables() {
+        List<Declarable> declarables = new ArrayList<>();
+        if (partitions <= 1)
+            return new Declarables(declarables);
+        DirectExchange partitionExchange = new DirectExchange(SENSOR_PARTITION_EXCHANGE, true, false);
+        declarables.add(partitionExchange);
+        DirectExchange deadLetterExchange = new DirectExchange(SENSOR_PARTITION_DEAD_LETTER_EXCHANGE, true, false);
+        Queue deadLetterQueue = QueueBuilder.durable(SENSOR_PARTITION_DEAD_LETTER_QUEUE).build();
+        declarables.add(deadLetterExchange);
+        declarables.add(deadLetterQueue);
+        declarables.add(BindingBuilder.bind(deadLetterQueue).to(deadLetterExchange).with(SENSOR_PARTITION_DEAD_LETTER_QUEUE));
+        for (int i = 0; i < partitions; i++) {
+            Queue partitionQueue = QueueBuilder.durable(partitionQueueName(i))
+                    .singleActiveConsumer()
+                    .deadLetterExchange(SENSOR_PARTITION_DEAD_LETTER_EXCHANGE)
+                    .deadLetterRoutingKey(SENSOR_PARTITION_DEAD_LETTER_QUEUE)
+                    .build();
+            declarables.add(partitionQueue);
+            declarables.add(BindingBuilder.bind(partitionQueue).to(partitionExchange).with(partitionQueueName(i)));
+        }
+        return new Declarables(declarables);
+    }
+
+    // Every instance binds its own exclusive, auto delete queue to receive all the level changes
+    @Bean
+    public FanoutExchange containerLevelChangesExchange() {
+        return new FanoutExchange(CONTAINER_LEVEL_EXCHANGE, true, false);
+    }
+
+    @Bean
+    public Queue containerLevelChangesQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding containerLevelChangesBinding() {
+        return BindingBuilder.bind(containerLevelChangesQueue()).to(containerLevelChangesExchange());
     }
 
     @Bean
@@ -36,6 +127,70 @@ public class RabbitConfig {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(jsonMessageConverter());
+        configureConsumers(factory, prefetch);
+        return factory;
+    }
+
+    // Consumer side batching: a batch is released when it reaches batchSize or when no new
+    // message arrives within receiveTimeout. Messages are acked only after the listener returns.
+    @Bean
+    public SimpleRabbitListenerContainerFactory sensorBatchListenerContainerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(jsonMessageConverter());
+        configureBatching(factory);
+        configureConsumers(factory, Math.max(prefetch, batchSize));
+        return factory;
+    }
+
+    // Used for the partition queues, one listener container with a single consumer per queue. A failed
+    // message or batch is retried with backoff and then dead lettered, never requeued: a requeued batch
+    // that always fails would stop every container of the partition.
+    @Bean
+    public SimpleRabbitListenerContainerFactory sensorPartitionListenerContainerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setDefaultRequeueRejected(false);
+        factory.setAdviceChain(partitionRetryAdvice());
+        if (batchEnabled) {
+            configureBatching(factory);
+            configureConsumers(factory, Math.max(prefetch, batchSize));
+        } else {
+            configureConsumers(factory, prefetch);
+        }
         return factory;
     }
-}
\ No newline at end of file
+
+    private Advice partitionRetryAdvice() {
+        var retry = RetryInterceptorBuilder.stateless()
+                .maxAttempts(retryMaxAttempts)
+                .backOffOptions(retryInitialInterval, 2.0, retryMaxInterval);
+        if (!batchEnabled)
+            return retry.recoverer(new RejectAndDontRequeueRecoverer()).build();
+        MessageBatchRecoverer recoverer = (messages, cause) -> {
+            throw new ListenerExecutionFailedException("Sensor data batch failed after retries, dead lettering "
+                + messages.size() + " messages", new AmqpRejectAndDontRequeueException(cause),
+                messages.toArray(new Message[0]));
+        };
+        return retry.recoverer(recoverer).build();
+    }
+
+    private void configureBatching(SimpleRabbitListenerContainerFactory factory) {
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(batchReceiveTimeout);
+    }
+
+    private void configureConsumers(SimpleRabbitListenerContainerFactory factory, Integer prefetchCount) {
+        factory.setPrefetchCount(prefetchCount);
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("sensor-consumer-");
+            executor.setVirtualThreads(true);
+            factory.setTaskExecutor(executor);
+        }
+    }
+}
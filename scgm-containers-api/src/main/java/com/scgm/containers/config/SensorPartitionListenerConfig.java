@@ -0,0 +1,55 @@
+package com.scgm.containers.config;
+
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import com.scgm.containers.event.SensorDataPartitionListener;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Registers one listener container per partition queue. A single container listening to all
+// the partition queues would share its consumers between them and lose the per queue ordering.
+@Configuration
+@Slf4j
+public class SensorPartitionListenerConfig implements RabbitListenerConfigurer {
+
+    private final SensorDataPartitionListener sensorDataPartitionListener;
+    private final SimpleRabbitListenerContainerFactory sensorPartitionListenerContainerFactory;
+    private final Integer partitions;
+    private final Boolean batchEnabled;
+
+    public SensorPartitionListenerConfig(SensorDataPartitionListener sensorDataPartitionListener,
+        @Qualifier("sensorPartitionListenerContainerFactory") SimpleRabbitListenerContainerFactory sensorPartitionListenerContainerFactory,
+        @Value("${scgm.sensor.listener.partitions:4}") Integer partitions,
+        @Value("${scgm.sensor.batch.enabled:true}") Boolean batchEnabled) {
+        this.sensorDataPartitionListener = sensorDataPartitionListener;
+        this.sensorPartitionListenerContainerFactory = sensorPartitionListenerContainerFactory;
+        this.partitions = partitions;
+        this.batchEnabled = batchEnabled;
+    }
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        if (partitions <= 1)
+            return;
+        for (int i = 0; i < partitions; i++) {
+            SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+            endpoint.setId("sensor-data-partition-" + i);
+            endpoint.setQueueNames(RabbitConfig.partitionQueueName(i));
+            endpoint.setConcurrency("1");
+            if (batchEnabled) {
+                endpoint.setMessageListener((BatchMessageListener) sensorDataPartitionListener::onMessageBatch);
+            } else {
+                endpoint.setMessageListener(sensorDataPartitionListener::onMessage);
+            }
+            registrar.registerEndpoint(endpoint, sensorPartitionListenerContainerFactory);
+        }
+        log.info("Registered {} sensor data partition listeners, batch enabled: {}", partitions, batchEnabled);
+    }
+}
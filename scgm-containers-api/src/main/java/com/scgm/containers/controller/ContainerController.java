@@ -1,8 +1,13 @@
 package com.scgm.containers.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,16 +19,27 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.scgm.containers.dto.BoundsDto;
 import com.scgm.containers.dto.ContainerAddDto;
+import com.scgm.containers.dto.ContainerColumnsDto;
 import com.scgm.containers.dto.ContainerAddSendorDto;
 import com.scgm.containers.dto.ContainerDto;
+import com.scgm.containers.dto.ContainerPageDto;
+import com.scgm.containers.dto.ContainerReadingDto;
 import com.scgm.containers.dto.ContainerSearchParamsDto;
 import com.scgm.containers.dto.ContainerStatusSummaryDto;
 import com.scgm.containers.dto.ContainerUpdateDto;
 import com.scgm.containers.dto.ContainerZoneUpdateDto;
+import com.scgm.containers.dto.ZoneVersionDto;
 import com.scgm.containers.entity.ContainerEntity.WasteLevel;
+import com.scgm.containers.service.ContainerReadingService;
 import com.scgm.containers.service.ContainerService;
 
 import lombok.AllArgsConstructor;
@@ -35,7 +51,12 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ContainerController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int STREAM_FLUSH_ROWS = 500;
+
     private final ContainerService containerService;
+    private final ObjectMapper objectMapper;
+    private final ContainerReadingService containerReadingService;
 
     @PostMapping("/by-customer/{customerId}")
     public ResponseEntity<ContainerDto> add(@PathVariable Long customerId, 
@@ -53,6 +74,20 @@ public class ContainerController {
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
+    @GetMapping("/by-customer/{customerId}/container/{id}/readings")
+    public ResponseEntity<List<ContainerReadingDto>> findReadings(@PathVariable Long customerId,
+        @PathVariable String id,
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestParam(required = false) Integer limit) {
+        log.info("Finding readings for container ID: {}, customerId: {}", id, customerId);
+        List<ContainerReadingDto> readings = containerReadingService.findByContainerId(customerId, id, from, to,
+            limit);
+        if (readings.isEmpty())
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        return new ResponseEntity<>(readings, HttpStatus.OK);
+    }
+
     @GetMapping("/by-customer/{customerId}/by-address")
     public ResponseEntity<List<ContainerDto>> findByAddressContaining(@PathVariable Long customerId,
         @RequestParam String address) {
@@ -73,15 +108,73 @@ public class ContainerController {
     }
 
 
+    @GetMapping(value = "/by-customer/{customerId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamByCustomerId(@PathVariable Long customerId) {
+        log.info("Streaming containers for customer with ID: {}", customerId);
+        return new ResponseEntity<>(ndjsonBody(customerId, null), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/by-customer/{customerId}/city/{cityId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamByCustomerIdAndCityId(@PathVariable Long customerId,
+        @PathVariable Long cityId) {
+        log.info("Streaming containers for customer ID: {}, city ID: {}", customerId, cityId);
+        return new ResponseEntity<>(ndjsonBody(customerId, cityId), HttpStatus.OK);
+    }
+
+    // One JSON document per line, flushed every STREAM_FLUSH_ROWS so the client can start consuming
+    private StreamingResponseBody ndjsonBody(Long customerId, Long cityId) {
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+                int[] rows = {0};
+                containerService.streamByCustomerIdAndCityId(customerId, cityId, container -> {
+                    try {
+                        generator.writeObject(container);
+                        if (++rows[0] % STREAM_FLUSH_ROWS == 0)
+                            generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeRaw('\n');
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    @GetMapping(value = "/by-customer/{customerId}/city/{cityId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeLevelChanges(@PathVariable Long customerId,
+        @PathVariable Long cityId,
+        @RequestParam(required = false) String zoneId) {
+        log.info("Subscribing to level changes, customerId: {}, cityId: {}, zoneId: {}", customerId, cityId, zoneId);
+        return containerService.subscribeLevelChanges(customerId, cityId, zoneId);
+    }
+
+    @GetMapping("/by-customer/{customerId}/city/{cityId}/in-bounds")
+    public ResponseEntity<List<ContainerDto>> findInBounds(
+        @PathVariable Long customerId,
+        @PathVariable Long cityId,
+        @ModelAttribute BoundsDto bounds) {
+        log.info("Finding containers in bounds, customerId: {}, cityId: {}", customerId, cityId);
+        List<ContainerDto> containers = containerService.findInBounds(customerId, cityId, bounds);
+        if (containers.isEmpty())
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        return new ResponseEntity<>(containers, HttpStatus.OK);
+    }
+
     @GetMapping("/by-customer/{customerId}/city/{cityId}/paginated")
     public ResponseEntity<List<ContainerDto>> findByCustomerIdAndCityIdPaginated(
         @PathVariable Long customerId, 
         @PathVariable Long cityId,
         @ModelAttribute ContainerSearchParamsDto searchParams) {
         log.info("Finding paginated containers for customer ID: {}, city ID: {}", customerId, cityId);
-        List<ContainerDto> containers = containerService.findByCustomerIdAndCityIdPaginated(
+        ContainerPageDto containerPage = containerService.findByCustomerIdAndCityIdPaginated(
             customerId, cityId, searchParams);
-        return new ResponseEntity<>(containers, HttpStatus.OK);
+        HttpHeaders headers = new HttpHeaders();
+        if (containerPage.getNextCursor() != null)
+            headers.add(NEXT_CURSOR_HEADER, containerPage.getNextCursor());
+        return new ResponseEntity<>(containerPage.getContainers(), headers, HttpStatus.OK);
     }
 
 
@@ -100,6 +193,33 @@ public class ContainerController {
         return new ResponseEntity<>(containers, HttpStatus.OK);
     }
 
+    // Count and last update of the zone, lets clients revalidate cached copies cheaply
+    @GetMapping("/by-customer/{customerId}/city/{cityId}/zone/{zoneId}/version")
+    public ResponseEntity<ZoneVersionDto> getZoneVersion(
+        @PathVariable Long customerId,
+        @PathVariable Long cityId,
+        @PathVariable String zoneId) {
+        var version = containerService.getZoneVersion(customerId, cityId, zoneId);
+        return new ResponseEntity<>(version, HttpStatus.OK);
+    }
+
+    // Compact columnar form of the zone for route optimization, optionally only some levels and above a fill value.
+    // With predictedFullBy only the containers expected to be full by then, with their forecast level at that time.
+    @GetMapping("/by-customer/{customerId}/city/{cityId}/zone/{zoneId}/columns")
+    public ResponseEntity<ContainerColumnsDto> findColumnsByCustomerIdAndCityIdAndZoneId(
+        @PathVariable Long customerId,
+        @PathVariable Long cityId,
+        @PathVariable String zoneId,
+        @RequestParam(required = false) List<WasteLevel> wasteLevelStatuses,
+        @RequestParam(required = false) Double minWasteLevelValue,
+        @RequestParam(required = false) Instant predictedFullBy) {
+        var columns = containerService.findColumnsByCustomerIdAndCityIdAndZoneId(customerId, cityId, zoneId,
+            wasteLevelStatuses, minWasteLevelValue, predictedFullBy);
+        if (columns.getIds().isEmpty())
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        return new ResponseEntity<>(columns, HttpStatus.OK);
+    }
+
     @GetMapping("/by-customer/{customerId}/city/{cityId}/zone/{zoneId}")
     public ResponseEntity<List<ContainerDto>> findByCustomerIdAndCityIdAndZoneId(
         @PathVariable Long customerId, 
@@ -134,9 +254,10 @@ public class ContainerController {
 
     @GetMapping("/by-customer/{customerId}/status-summary/{cityId}")
     public ResponseEntity<ContainerStatusSummaryDto> getStatusSummary(@PathVariable Long customerId, 
-        @PathVariable Long cityId) {
-        log.info("Getting status summary for customerId: {}, city ID: {}", customerId, cityId);
-        var summaryOpt = containerService.getStatusSummary(cityId);
+        @PathVariable Long cityId,
+        @RequestParam(required = false) String zoneId) {
+        log.info("Getting status summary for customerId: {}, city ID: {}, zone ID: {}", customerId, cityId, zoneId);
+        var summaryOpt = containerService.getStatusSummary(customerId, cityId, zoneId);
         return summaryOpt.map(summary -> new ResponseEntity<>(summary, HttpStatus.OK))
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
@@ -1,5 +1,7 @@
 package com.scgm.containers.dto;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,9 +18,14 @@ import lombok.NoArgsConstructor;
 @Builder
 public class ContainerAddSendorDto {
 
+    // Older readings are rejected, a sensor clock ahead of ours is taken as a reading of now
+    public static final Duration MAX_READING_AGE = Duration.ofDays(7);
+
     private String id;
     private Double wasteLevelValue;
     private Double temperature;
+    // Time the sensor took the reading, the reception time is used when missing
+    private Instant readAt;
 
     public List<String> validate() {
         List<String> listErrors = new ArrayList<>();
@@ -28,7 +35,16 @@ public class ContainerAddSendorDto {
             listErrors.add("wasteLevelValue: is required");
         if (temperature == null)
             listErrors.add("temperature: is required");
+        else if (temperature < 0.0 || temperature > 70.0)
+            listErrors.add("temperature: must be between 0 and 70 degrees");
+        if (readAt != null && readAt.isBefore(Instant.now().minus(MAX_READING_AGE)))
+            listErrors.add("readAt: must be within the last 7 days");
         return listErrors;
     }
 
+    // Time of the reading, never after the time it was received
+    public Instant resolveReadAt(Instant receivedAt) {
+        return readAt == null || readAt.isAfter(receivedAt) ? receivedAt : readAt;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.scgm.containers.dto;
+
+import java.util.List;
+
+import com.scgm.containers.entity.ContainerEntity.WasteLevel;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Columnar view of containers with only what route optimization reads,
+// position i of every column belongs to the same container
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContainerColumnsDto {
+
+    private List<String> ids;
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] wasteLevelValues;
+    private List<WasteLevel> wasteLevelStatuses;
+    // Fill levels expected at the predicted full time asked for, null otherwise
+    private double[] forecastWasteLevelValues;
+
+}
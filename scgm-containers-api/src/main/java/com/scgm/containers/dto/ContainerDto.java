@@ -30,6 +30,8 @@ public class ContainerDto {
     private Instant createdAt;
     private Instant updatedAt;
     private String zoneId;
+    // When the fill level is expected to reach the full level, null while unknown
+    private Instant predictedFullAt;
 
     public static ContainerEntity toEntity(ContainerDto containerDto) {
         return ContainerEntity.builder()
@@ -62,6 +64,7 @@ public class ContainerDto {
                 .zoneId(containerEntity.getZoneId())
                 .createdAt(containerEntity.getCreatedAt())
                 .updatedAt(containerEntity.getUpdatedAt())
+                .predictedFullAt(containerEntity.getPredictedFullAt())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.scgm.containers.dto;
+
+import java.time.Instant;
+
+import com.scgm.containers.entity.ContainerEntity.WasteLevel;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class ContainerLevelChangeDto {
+
+    private String id;
+    private Long customerId;
+    private Long cityId;
+    private String zoneId;
+    private Double wasteLevelValue;
+    private WasteLevel previousStatus;
+    private WasteLevel wasteLevelStatus;
+    private Double temperature;
+    private Instant updatedAt;
+
+}
@@ -0,0 +1,20 @@
+package com.scgm.containers.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContainerPageDto {
+
+    private List<ContainerDto> containers;
+    // Null when there are no more rows
+    private String nextCursor;
+
+}
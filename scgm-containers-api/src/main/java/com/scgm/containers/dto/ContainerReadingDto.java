@@ -0,0 +1,29 @@
+package com.scgm.containers.dto;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContainerReadingDto {
+
+    private String containerId;
+    private Instant readAt;
+    private Double wasteLevelValue;
+    private Double temperature;
+
+    public static ContainerReadingDto fromSensorDto(ContainerAddSendorDto containerAddSendor, Instant receivedAt) {
+        return ContainerReadingDto.builder()
+                .containerId(containerAddSendor.getId())
+                .readAt(containerAddSendor.resolveReadAt(receivedAt))
+                .wasteLevelValue(containerAddSendor.getWasteLevelValue())
+                .temperature(containerAddSendor.getTemperature())
+                .build();
+    }
+}
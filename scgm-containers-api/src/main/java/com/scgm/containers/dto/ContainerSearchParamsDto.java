@@ -7,6 +7,7 @@ import org.apache.commons.lang.StringUtils;
 
 import com.scgm.containers.entity.ContainerEntity;
 import com.scgm.containers.entity.ContainerEntity.WasteLevel;
+import com.scgm.containers.util.CursorUtil;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -25,6 +26,10 @@ public class ContainerSearchParamsDto {
     private WasteLevel wasteLevelStatus;
     private Double betweenLatitude;
     private Double betweenLongitude;
+    // Radius search around betweenLatitude/betweenLongitude, without it a 0.01 degree box is used
+    private Double radiusMeters;
+    // Opaque keyset cursor returned in the X-Next-Cursor header of the previous page
+    private String cursor;
 
     public List<String> validate() {
         List<String> errors = new ArrayList<>();
@@ -50,6 +55,15 @@ public class ContainerSearchParamsDto {
         if (betweenLongitude != null && (betweenLongitude < -180.0 || betweenLongitude > 180.0)) {
             errors.add("betweenLongitude must be between -180.0 and 180.0");
         }
+        if (radiusMeters != null && (betweenLatitude == null || betweenLongitude == null)) {
+            errors.add("radiusMeters requires betweenLatitude and betweenLongitude");
+        }
+        if (radiusMeters != null && (radiusMeters <= 0.0 || radiusMeters > 50000.0)) {
+            errors.add("radiusMeters must be greater than 0 and less than or equal to 50000");
+        }
+        if (cursor != null && !CursorUtil.isValid(cursor)) {
+            errors.add("cursor: invalid format");
+        }
         return errors;
     }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.scgm.containers.dto;
+
+import com.scgm.containers.entity.ContainerEntity.WasteLevel;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContainerStatusDto {
+
+    private String id;
+    private Long customerId;
+    private Long cityId;
+    private String zoneId;
+    private WasteLevel wasteLevelStatus;
+    // Only read for the sensor batch
+    private double[] fillModel;
+
+}
@@ -0,0 +1,21 @@
+package com.scgm.containers.dto;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Changes when a container of the zone is added, removed or updated
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ZoneVersionDto {
+
+    private long count;
+    // Null for a zone without containers
+    private Instant maxUpdatedAt;
+
+}
@@ -12,6 +12,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import org.apache.commons.lang.StringUtils;
 import java.util.ArrayList;
 import java.util.List;
@@ -73,6 +75,14 @@ public class ContainerEntity {
     @Column(name = "zone_id", nullable = true)
     private String zoneId;
 
+    // Fill rate regression state, see ContainerFillForecaster
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "fill_model", nullable = true)
+    private double[] fillModel;
+
+    @Column(name = "predicted_full_at", nullable = true)
+    private Instant predictedFullAt;
+
     public enum WasteLevel {
         LIGHT,
         MEDIUM,
@@ -0,0 +1,18 @@
+package com.scgm.containers.event;
+
+import java.util.List;
+
+import com.scgm.containers.dto.ContainerLevelChangeDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Published by the sensor paths when the waste level status of containers changes,
+// also used as the payload of the fanout between instances
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContainerLevelChangedEvent {
+    private List<ContainerLevelChangeDto> changes;
+}
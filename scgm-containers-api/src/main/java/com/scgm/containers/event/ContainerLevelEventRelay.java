@@ -0,0 +1,39 @@
+package com.scgm.containers.event;
+
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.scgm.containers.config.RabbitConfig;
+import com.scgm.containers.service.ContainerLevelBroker;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Sensor readings are processed by whichever instance owns the partition, so level changes
+// go through a fanout exchange and every instance delivers them to its own subscribers.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ContainerLevelEventRelay {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ContainerLevelBroker containerLevelBroker;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLevelChanged(ContainerLevelChangedEvent event) {
+        try {
+            rabbitTemplate.convertAndSend(RabbitConfig.CONTAINER_LEVEL_EXCHANGE, "", event);
+        } catch (Exception e) {
+            // Subscribers miss these changes, they are still visible in the next full read
+            log.error("Error publishing {} container level changes", event.getChanges().size(), e);
+        }
+    }
+
+    @RabbitListener(queues = "#{containerLevelChangesQueue.name}")
+    public void onFanout(ContainerLevelChangedEvent event) {
+        containerLevelBroker.publish(event.getChanges());
+    }
+}
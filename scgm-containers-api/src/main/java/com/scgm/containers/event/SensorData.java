@@ -1,5 +1,9 @@
 package com.scgm.containers.event;
 
+import java.time.Instant;
+
+import com.scgm.containers.dto.ContainerAddSendorDto;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,4 +15,14 @@ public class SensorData {
     private String containerId;
     private Double wasteLevelValue;
     private Double temperature;
+    private Instant readAt;
+
+    public static ContainerAddSendorDto toSensorDto(SensorData sensorData) {
+        return ContainerAddSendorDto.builder()
+                .id(sensorData.getContainerId())
+                .wasteLevelValue(sensorData.getWasteLevelValue())
+                .temperature(sensorData.getTemperature())
+                .readAt(sensorData.getReadAt())
+                .build();
+    }
 }
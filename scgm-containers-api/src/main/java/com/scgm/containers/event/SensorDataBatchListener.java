@@ -0,0 +1,40 @@
+package com.scgm.containers.event;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.scgm.containers.config.RabbitConfig;
+import com.scgm.containers.dto.ContainerAddSendorDto;
+import com.scgm.containers.service.ContainerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "scgm.sensor.batch.enabled", havingValue = "true", matchIfMissing = true)
+public class SensorDataBatchListener {
+
+    private final ContainerService containerService;
+    private final SensorDataRouter sensorDataRouter;
+
+    // The whole batch is acked once this method returns, i.e. after the batch update has committed
+    // (or, when partitioned, after the broker confirmed the readings routed to the partition queues).
+    // If the flush fails the exception propagates and the batch is redelivered.
+    @RabbitListener(queues = RabbitConfig.SENSOR_DATA_QUEUE, containerFactory = "sensorBatchListenerContainerFactory")
+    public void handleSensorDataBatch(List<SensorData> sensorDataBatch) {
+        log.info("Received sensor data batch with {} readings", sensorDataBatch.size());
+        if (sensorDataRouter.isPartitioned()) {
+            sensorDataRouter.route(sensorDataBatch);
+            return;
+        }
+        List<ContainerAddSendorDto> readings = sensorDataBatch.stream()
+                .map(SensorData::toSensorDto)
+                .collect(Collectors.toList());
+        int updated = containerService.addSensorDataBatch(readings);
+        log.info("Sensor data batch flushed, readings: {}, containers updated: {}", readings.size(), updated);
+    }
+}
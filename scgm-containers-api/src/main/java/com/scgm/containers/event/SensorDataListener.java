@@ -1,28 +1,32 @@
 package com.scgm.containers.event;
 
-import com.scgm.containers.dto.ContainerAddSendorDto;
+import java.util.List;
+
+import com.scgm.containers.config.RabbitConfig;
 import com.scgm.containers.service.ContainerServiceImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
+@ConditionalOnProperty(name = "scgm.sensor.batch.enabled", havingValue = "false")
 public class SensorDataListener {
     
     private final ContainerServiceImpl containerService;
+    private final SensorDataRouter sensorDataRouter;
     
-    @RabbitListener(queues = "sensor.data.queue")
+    @RabbitListener(queues = RabbitConfig.SENSOR_DATA_QUEUE)
     public void handleSensorData(SensorData sensorData) {
         log.info("Received sensor data for container: {} - wasteLevelValue: {}, temperature: {}°C", 
                 sensorData.getContainerId(), sensorData.getWasteLevelValue(), sensorData.getTemperature());
-        ContainerAddSendorDto sensorDto = ContainerAddSendorDto.builder()
-                .id(sensorData.getContainerId())
-                .wasteLevelValue(sensorData.getWasteLevelValue())
-                .temperature(sensorData.getTemperature())
-                .build();
-        containerService.addSensorData(sensorDto);
+        if (sensorDataRouter.isPartitioned()) {
+            sensorDataRouter.route(List.of(sensorData));
+            return;
+        }
+        containerService.addSensorData(SensorData.toSensorDto(sensorData));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+package com.scgm.containers.event;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scgm.containers.dto.ContainerAddSendorDto;
+import com.scgm.containers.exceptions.ContainerNotFoundException;
+import com.scgm.containers.exceptions.ContainerValidationException;
+import com.scgm.containers.service.ContainerService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Consumes a partition queue. A message that can never be applied is dropped instead of
+// requeued, otherwise it would block every container that hashes to the same partition.
+// Any other failure is retried by the listener container and then dead lettered.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SensorDataPartitionListener {
+
+    private final ContainerService containerService;
+    private final ObjectMapper objectMapper;
+
+    public void onMessage(Message message) {
+        SensorData sensorData = readSensorData(message);
+        if (sensorData == null)
+            return;
+        try {
+            containerService.addSensorData(SensorData.toSensorDto(sensorData));
+        } catch (ContainerNotFoundException | ContainerValidationException e) {
+            log.warn("Discarding sensor data for container ID: {}, {}", sensorData.getContainerId(), e.getMessage());
+        }
+    }
+
+    public void onMessageBatch(List<Message> messages) {
+        List<ContainerAddSendorDto> readings = messages.stream()
+                .map(this::readSensorData)
+                .filter(Objects::nonNull)
+                .map(SensorData::toSensorDto)
+                .collect(Collectors.toList());
+        int updated = containerService.addSensorDataBatch(readings);
+        log.info("Sensor data partition batch flushed, readings: {}, containers updated: {}", readings.size(), updated);
+    }
+
+    private SensorData readSensorData(Message message) {
+        try {
+            return objectMapper.readValue(message.getBody(), SensorData.class);
+        } catch (IOException e) {
+            log.warn("Discarding unreadable sensor data message: {}", e.getMessage());
+            return null;
+        }
+    }
+}
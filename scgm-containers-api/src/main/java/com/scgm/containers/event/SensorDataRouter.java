@@ -0,0 +1,52 @@
+package com.scgm.containers.event;
+
+import java.util.List;
+
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.scgm.containers.config.RabbitConfig;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Component
+@Slf4j
+public class SensorDataRouter {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final Integer partitions;
+    private final Long confirmTimeout;
+
+    public SensorDataRouter(RabbitTemplate rabbitTemplate,
+        @Value("${scgm.sensor.listener.partitions:4}") Integer partitions,
+        @Value("${scgm.sensor.listener.confirm-timeout-ms:5000}") Long confirmTimeout) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.partitions = partitions;
+        this.confirmTimeout = confirmTimeout;
+    }
+
+    public boolean isPartitioned() {
+        return partitions > 1;
+    }
+
+    public int partitionOf(String containerId) {
+        if (containerId == null)
+            return 0;
+        return Math.floorMod(containerId.hashCode(), partitions);
+    }
+
+    // Publishes the readings on the same channel and waits for the broker confirms, so the
+    // incoming messages are only acked once every reading is stored in its partition queue.
+    public void route(List<SensorData> sensorDataList) {
+        rabbitTemplate.invoke(operations -> {
+            for (SensorData sensorData : sensorDataList) {
+                String partitionQueue = RabbitConfig.partitionQueueName(partitionOf(sensorData.getContainerId()));
+                operations.convertAndSend(RabbitConfig.SENSOR_PARTITION_EXCHANGE, partitionQueue, sensorData);
+            }
+            operations.waitForConfirmsOrDie(confirmTimeout);
+            return null;
+        });
+        log.debug("Routed {} sensor readings to {} partitions", sensorDataList.size(), partitions);
+    }
+}
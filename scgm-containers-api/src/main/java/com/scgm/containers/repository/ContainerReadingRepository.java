@@ -0,0 +1,83 @@
+package com.scgm.containers.repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.scgm.containers.dto.ContainerReadingDto;
+
+import lombok.AllArgsConstructor;
+
+// container_readings is partitioned and has no primary key, it is accessed with plain JDBC.
+// Inserts are sent as JDBC batches, rewritten by the driver into multi-row INSERTs
+// (reWriteBatchedInserts=true in the datasource url).
+@Repository
+@AllArgsConstructor
+public class ContainerReadingRepository {
+
+    private static final String INSERT_READING_SQL = """
+    INSERT INTO container_readings (container_id, read_at, waste_level_value, temperature)
+    VALUES (?, ?, ?, ?)
+    """;
+
+    // Only the readings of a container of the customer
+    private static final String FIND_BY_CONTAINER_ID_SQL = """
+    SELECT r.container_id, r.read_at, r.waste_level_value, r.temperature FROM container_readings r
+    JOIN containers c ON c.id = r.container_id AND c.customer_id = ?
+    WHERE
+        r.container_id = ?
+        AND r.read_at >= ?
+        AND r.read_at < ?
+    ORDER BY r.read_at DESC
+    LIMIT ?
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int[] insertAll(List<ContainerReadingDto> readings) {
+        return jdbcTemplate.batchUpdate(INSERT_READING_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ContainerReadingDto reading = readings.get(i);
+                ps.setString(1, reading.getContainerId());
+                ps.setTimestamp(2, Timestamp.from(reading.getReadAt()));
+                ps.setDouble(3, reading.getWasteLevelValue());
+                ps.setDouble(4, reading.getTemperature());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return readings.size();
+            }
+        });
+    }
+
+    public List<ContainerReadingDto> findByContainerId(Long customerId, String containerId, Instant from, Instant to,
+        Integer limit) {
+        return jdbcTemplate.query(FIND_BY_CONTAINER_ID_SQL, (rs, rowNum) -> ContainerReadingDto.builder()
+                .containerId(rs.getString("container_id"))
+                .readAt(rs.getTimestamp("read_at").toInstant())
+                .wasteLevelValue(rs.getDouble("waste_level_value"))
+                .temperature(rs.getDouble("temperature"))
+                .build(),
+            customerId, containerId, Timestamp.from(from), Timestamp.from(to), limit);
+    }
+
+    public String createPartition(LocalDate month) {
+        return jdbcTemplate.queryForObject("SELECT create_container_readings_partition(?)", String.class,
+            Date.valueOf(month));
+    }
+
+    public Integer dropPartitionsBefore(LocalDate before) {
+        return jdbcTemplate.queryForObject("SELECT drop_container_readings_partitions(?)", Integer.class,
+            Date.valueOf(before));
+    }
+}
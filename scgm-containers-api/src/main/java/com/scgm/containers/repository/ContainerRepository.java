@@ -33,7 +33,7 @@ public interface ContainerRepository extends JpaRepository<ContainerEntity, Stri
             customer_id = :customerId
             AND city_id = :cityId
         ORDER BY random()
-        LIMIT CASE WHEN :limit <= 0 THEN (SELECT COUNT(*) FROM containers) ELSE :limit END
+        LIMIT CASE WHEN :limit <= 0 THEN NULL ELSE :limit END
     )
     SELECT * FROM random_selection ORDER BY updated_at DESC;
     """, nativeQuery = true)
@@ -49,7 +49,7 @@ public interface ContainerRepository extends JpaRepository<ContainerEntity, Stri
         c.customer_id = :customerId
         AND c.city_id = :cityId
     ORDER BY c.updated_at DESC
-    LIMIT CASE WHEN :limit <= 0 THEN (SELECT COUNT(*) FROM containers) ELSE :limit end;
+    LIMIT CASE WHEN :limit <= 0 THEN NULL ELSE :limit END;
     """, nativeQuery = true)
     List<ContainerEntity> findByCustomerIdAndCityId(
         @Param("customerId") Long customerId, 
@@ -66,7 +66,7 @@ public interface ContainerRepository extends JpaRepository<ContainerEntity, Stri
              (:hasZoneId = true AND c.zone_id IS NOT NULL) OR 
              (:hasZoneId = false AND c.zone_id IS NULL))
     ORDER BY c.updated_at DESC
-    LIMIT CASE WHEN :limit <= 0 THEN (SELECT COUNT(*) FROM containers) ELSE :limit END;
+    LIMIT CASE WHEN :limit <= 0 THEN NULL ELSE :limit END;
     """, nativeQuery = true)
     List<ContainerEntity> findByCustomerIdAndCityIdWithZoneFilter(
         @Param("customerId") Long customerId, 
@@ -81,7 +81,7 @@ public interface ContainerRepository extends JpaRepository<ContainerEntity, Stri
         AND city_id = :cityId
         AND zone_id = :zoneId
     ORDER BY updated_at DESC
-    LIMIT CASE WHEN :limit <= 0 THEN (SELECT COUNT(*) FROM containers) ELSE :limit END;
+    LIMIT CASE WHEN :limit <= 0 THEN NULL ELSE :limit END;
     """, nativeQuery = true)
     List<ContainerEntity> findByCustomerIdAndCityIdAndZoneId(
         @Param("customerId") Long customerId, 
@@ -97,9 +97,16 @@ public interface ContainerRepository extends JpaRepository<ContainerEntity, Stri
         SUM(CASE WHEN waste_level_status = 'MEDIUM' THEN 1 ELSE 0 END) AS medium,
         SUM(CASE WHEN waste_level_status = 'HEAVY' THEN 1 ELSE 0 END) AS heavy,
         COUNT(*) AS total
-    FROM containers WHERE city_id = :cityId;
+    FROM containers
+    WHERE
+        customer_id = :customerId
+        AND city_id = :cityId
+        AND (CAST(:zoneId AS VARCHAR) IS NULL OR zone_id = CAST(:zoneId AS VARCHAR));
     """, nativeQuery = true)
-    Map<String, Long> getStatusSummary(@Param("cityId") Long cityId);
+    Map<String, Long> getStatusSummary(
+        @Param("customerId") Long customerId,
+        @Param("cityId") Long cityId,
+        @Param("zoneId") String zoneId);
 
     //-----------------
     @Query(value = """
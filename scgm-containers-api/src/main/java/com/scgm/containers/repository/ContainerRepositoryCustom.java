@@ -1,12 +1,42 @@
 package com.scgm.containers.repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import com.scgm.containers.dto.ContainerColumnsDto;
 import com.scgm.containers.dto.ContainerSearchParamsDto;
+import com.scgm.containers.dto.ContainerStatusDto;
+import com.scgm.containers.dto.ZoneVersionDto;
 import com.scgm.containers.entity.ContainerEntity;
+import com.scgm.containers.entity.ContainerEntity.WasteLevel;
 
 public interface ContainerRepositoryCustom {
     
     List<ContainerEntity> findByCustomerIdAndCityIdPaginatedDynamic(
         Long customerId, Long cityId, ContainerSearchParamsDto searchParams);
-}
\ No newline at end of file
+
+    // Only id, wasteLevelValue, wasteLevelStatus, temperature, updatedAt, fillModel and predictedFullAt
+    // are read from each entity.
+    int[] batchUpdateSensorData(List<ContainerEntity> containers);
+
+    // Status, customer, city, zone and fill model of the containers found by id, their rows stay locked
+    // until the transaction ends
+    Map<String, ContainerStatusDto> findSensorStates(Collection<String> ids);
+
+    // Scrolls the rows with a JDBC fetch size, each entity is detached once consumed. cityId is optional.
+    // Must run inside a transaction so Postgres keeps the cursor open.
+    void streamByCustomerIdAndCityId(Long customerId, Long cityId, Consumer<ContainerEntity> consumer);
+
+    // Reads id, customer, city, zone and status of every container without building entities
+    void forEachContainerStatus(Consumer<ContainerStatusDto> consumer);
+
+    // Id, coordinates and fill level of the containers of a zone, read straight into columns.
+    // Statuses, min value and predicted full time are optional filters, the last one also fills the forecast column.
+    ContainerColumnsDto findColumnsByCustomerIdAndCityIdAndZoneId(Long customerId, Long cityId, String zoneId,
+        List<WasteLevel> wasteLevelStatuses, Double minWasteLevelValue, Instant predictedFullBy);
+
+    ZoneVersionDto getZoneVersion(Long customerId, Long cityId, String zoneId);
+}
@@ -1,15 +1,38 @@
 package com.scgm.containers.repository;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import com.scgm.containers.dto.ContainerColumnsDto;
 import com.scgm.containers.dto.ContainerSearchParamsDto;
+import com.scgm.containers.dto.ContainerStatusDto;
+import com.scgm.containers.dto.ZoneVersionDto;
 import com.scgm.containers.entity.ContainerEntity;
+import com.scgm.containers.entity.ContainerEntity.WasteLevel;
+import com.scgm.containers.service.ContainerFillForecaster;
+import com.scgm.containers.util.CursorUtil;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -19,9 +42,44 @@ import jakarta.persistence.Query;
 public class ContainerRepositoryImpl implements ContainerRepositoryCustom {
     
     private static final Logger logger = LoggerFactory.getLogger(ContainerRepositoryImpl.class);
+
+    private static final double PROXIMITY_DEGREES = 0.01;
+
+    private static final String UPDATE_SENSOR_DATA_SQL = """
+    UPDATE containers
+        SET waste_level_value = ?, waste_level_status = ?, temperature = ?, updated_at = ?,
+            fill_model = ?, predicted_full_at = ?
+    WHERE id = ?
+    """;
+
+    // Locked in id order, the same order the batch update takes
+    private static final String FIND_SENSOR_STATES_SQL = """
+    SELECT id, customer_id, city_id, zone_id, waste_level_status, fill_model FROM containers
+    WHERE id = ANY(?) ORDER BY id FOR UPDATE
+    """;
     
+    private static final String FIND_CONTAINER_STATUS_SQL = """
+    SELECT id, customer_id, city_id, zone_id, waste_level_status FROM containers
+    """;
+
+    private static final String FIND_ZONE_COLUMNS_SQL = """
+    SELECT id, latitude, longitude, waste_level_value, waste_level_status, fill_model FROM containers
+    WHERE zone_id = ? AND customer_id = ? AND city_id = ?
+    """;
+
+    private static final String ZONE_VERSION_SQL = """
+    SELECT COUNT(*) AS count, MAX(updated_at) AS max_updated_at FROM containers
+    WHERE zone_id = ? AND customer_id = ? AND city_id = ?
+    """;
+
     @PersistenceContext
     private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${scgm.containers.stream.fetch-size:500}")
+    private int streamFetchSize;
     
     @Override
     @SuppressWarnings("unchecked")
@@ -48,16 +106,16 @@ public class ContainerRepositoryImpl implements ContainerRepositoryCustom {
             sql.append(" AND waste_level_status = :wasteLevelStatus");
             parameters.put("wasteLevelStatus", searchParams.getWasteLevelStatus().toString());
         }
-        if (searchParams.getBetweenLatitude() != null) {
-            sql.append(" AND ABS(latitude - :betweenLatitude) <= 0.01");
-            parameters.put("betweenLatitude", searchParams.getBetweenLatitude());
+        appendGeoFilter(sql, parameters, searchParams);
+        if (searchParams.getCursor() != null) {
+            // Keyset pagination, served by idx_containers_customer_id_city_id_updated_at_id
+            var cursor = CursorUtil.decode(searchParams.getCursor());
+            sql.append(" AND (updated_at, id) < (:cursorUpdatedAt, :cursorId)");
+            parameters.put("cursorUpdatedAt", Timestamp.from(cursor.updatedAt()));
+            parameters.put("cursorId", cursor.id());
         }
-        if (searchParams.getBetweenLongitude() != null) {
-            sql.append(" AND ABS(longitude - :betweenLongitude) <= 0.01");
-            parameters.put("betweenLongitude", searchParams.getBetweenLongitude());
-        }
-        sql.append(" ORDER BY updated_at DESC");
-        sql.append(" LIMIT CASE WHEN :limit <= 0 THEN (SELECT COUNT(*) FROM containers) ELSE :limit end;");
+        sql.append(" ORDER BY updated_at DESC, id DESC");
+        sql.append(" LIMIT CASE WHEN :limit <= 0 THEN NULL ELSE :limit END");
         
         logger.info("SQL Query: {}", sql.toString());
         
@@ -65,4 +123,180 @@ public class ContainerRepositoryImpl implements ContainerRepositoryCustom {
         parameters.forEach(query::setParameter);
         return query.getResultList();
     }
-}
\ No newline at end of file
+
+    // Spatial predicates on the geom column so the GiST indexes of V5 are used
+    private void appendGeoFilter(StringBuilder sql, Map<String, Object> parameters, ContainerSearchParamsDto searchParams) {
+        Double latitude = searchParams.getBetweenLatitude();
+        Double longitude = searchParams.getBetweenLongitude();
+        if (latitude == null && longitude == null)
+            return;
+        if (searchParams.getRadiusMeters() != null) {
+            sql.append(" AND ST_DWithin(CAST(geom AS geography),"
+                + " CAST(ST_SetSRID(ST_MakePoint(:betweenLongitude, :betweenLatitude), 4326) AS geography), :radiusMeters)");
+            parameters.put("betweenLatitude", latitude);
+            parameters.put("betweenLongitude", longitude);
+            parameters.put("radiusMeters", searchParams.getRadiusMeters());
+            return;
+        }
+        // Same 0.01 degree band as before on each given axis, as an index assisted envelope
+        sql.append(" AND geom && ST_MakeEnvelope(:minLng, :minLat, :maxLng, :maxLat, 4326)");
+        parameters.put("minLat", latitude != null ? latitude - PROXIMITY_DEGREES : -90.0);
+        parameters.put("maxLat", latitude != null ? latitude + PROXIMITY_DEGREES : 90.0);
+        parameters.put("minLng", longitude != null ? longitude - PROXIMITY_DEGREES : -180.0);
+        parameters.put("maxLng", longitude != null ? longitude + PROXIMITY_DEGREES : 180.0);
+    }
+
+    @Override
+    public int[] batchUpdateSensorData(List<ContainerEntity> containers) {
+        logger.info("Batch updating sensor data for {} containers", containers.size());
+        return jdbcTemplate.batchUpdate(UPDATE_SENSOR_DATA_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ContainerEntity container = containers.get(i);
+                ps.setDouble(1, container.getWasteLevelValue());
+                ps.setString(2, container.getWasteLevelStatus().toString());
+                ps.setDouble(3, container.getTemperature());
+                ps.setTimestamp(4, Timestamp.from(container.getUpdatedAt()));
+                if (container.getFillModel() == null)
+                    ps.setNull(5, Types.ARRAY);
+                else
+                    ps.setArray(5, ps.getConnection().createArrayOf("float8",
+                        Arrays.stream(container.getFillModel()).boxed().toArray()));
+                if (container.getPredictedFullAt() == null)
+                    ps.setNull(6, Types.TIMESTAMP);
+                else
+                    ps.setTimestamp(6, Timestamp.from(container.getPredictedFullAt()));
+                ps.setString(7, container.getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return containers.size();
+            }
+        });
+    }
+
+    @Override
+    public Map<String, ContainerStatusDto> findSensorStates(Collection<String> ids) {
+        Map<String, ContainerStatusDto> states = new HashMap<>();
+        jdbcTemplate.query(FIND_SENSOR_STATES_SQL,
+            ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", ids.toArray())),
+            rs -> {
+                states.put(rs.getString("id"), ContainerStatusDto.builder()
+                    .id(rs.getString("id"))
+                    .customerId(rs.getLong("customer_id"))
+                    .cityId(rs.getLong("city_id"))
+                    .zoneId(rs.getString("zone_id"))
+                    .wasteLevelStatus(WasteLevel.valueOf(rs.getString("waste_level_status")))
+                    .fillModel(toDoubles(rs.getArray("fill_model")))
+                    .build());
+            });
+        return states;
+    }
+
+    private static double[] toDoubles(java.sql.Array array) throws SQLException {
+        if (array == null)
+            return null;
+        Object[] values = (Object[]) array.getArray();
+        double[] doubles = new double[values.length];
+        for (int i = 0; i < values.length; i++)
+            doubles[i] = ((Number) values[i]).doubleValue();
+        return doubles;
+    }
+
+    @Override
+    public void streamByCustomerIdAndCityId(Long customerId, Long cityId, Consumer<ContainerEntity> consumer) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM containers WHERE customer_id = :customerId");
+        if (cityId != null)
+            sql.append(" AND city_id = :cityId");
+        sql.append(" ORDER BY updated_at DESC, id DESC");
+        Session session = entityManager.unwrap(Session.class);
+        var query = session.createNativeQuery(sql.toString(), ContainerEntity.class)
+            .setParameter("customerId", customerId)
+            .setFetchSize(streamFetchSize)
+            .setReadOnly(true);
+        if (cityId != null)
+            query.setParameter("cityId", cityId);
+        try (ScrollableResults<ContainerEntity> results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                ContainerEntity container = results.get();
+                consumer.accept(container);
+                session.detach(container);
+            }
+        }
+    }
+
+    @Override
+    public void forEachContainerStatus(Consumer<ContainerStatusDto> consumer) {
+        jdbcTemplate.query(FIND_CONTAINER_STATUS_SQL, rs -> {
+            consumer.accept(ContainerStatusDto.builder()
+                .id(rs.getString("id"))
+                .customerId(rs.getLong("customer_id"))
+                .cityId(rs.getLong("city_id"))
+                .zoneId(rs.getString("zone_id"))
+                .wasteLevelStatus(WasteLevel.valueOf(rs.getString("waste_level_status")))
+                .build());
+        });
+    }
+
+    @Override
+    public ContainerColumnsDto findColumnsByCustomerIdAndCityIdAndZoneId(Long customerId, Long cityId, String zoneId,
+        List<WasteLevel> wasteLevelStatuses, Double minWasteLevelValue, Instant predictedFullBy) {
+        StringBuilder sql = new StringBuilder(FIND_ZONE_COLUMNS_SQL);
+        List<Object> args = new ArrayList<>(List.of(zoneId, customerId, cityId));
+        if (wasteLevelStatuses != null && !wasteLevelStatuses.isEmpty()) {
+            sql.append(" AND waste_level_status IN (")
+                .append(String.join(", ", Collections.nCopies(wasteLevelStatuses.size(), "?")))
+                .append(")");
+            wasteLevelStatuses.forEach(status -> args.add(status.name()));
+        }
+        if (minWasteLevelValue != null) {
+            sql.append(" AND waste_level_value >= ?");
+            args.add(minWasteLevelValue);
+        }
+        // Containers without a forecast yet (no reading since V9, or never filling) count when already heavy
+        if (predictedFullBy != null) {
+            sql.append(" AND (predicted_full_at <= ? OR (predicted_full_at IS NULL AND waste_level_status = ?))");
+            args.add(Timestamp.from(predictedFullBy));
+            args.add(WasteLevel.HEAVY.toString());
+        }
+        List<String> ids = new ArrayList<>();
+        List<WasteLevel> statuses = new ArrayList<>();
+        double[][] values = new double[predictedFullBy != null ? 4 : 3][64];
+        jdbcTemplate.query(sql.toString(), rs -> {
+            int row = ids.size();
+            if (row == values[0].length) {
+                for (int column = 0; column < values.length; column++)
+                    values[column] = Arrays.copyOf(values[column], row * 2);
+            }
+            ids.add(rs.getString("id"));
+            values[0][row] = rs.getDouble("latitude");
+            values[1][row] = rs.getDouble("longitude");
+            values[2][row] = rs.getDouble("waste_level_value");
+            statuses.add(WasteLevel.valueOf(rs.getString("waste_level_status")));
+            if (predictedFullBy != null) {
+                Double forecast = ContainerFillForecaster.levelAt(toDoubles(rs.getArray("fill_model")), predictedFullBy);
+                values[3][row] = forecast != null ? forecast : values[2][row];
+            }
+        }, args.toArray());
+        return ContainerColumnsDto.builder()
+            .ids(ids)
+            .latitudes(Arrays.copyOf(values[0], ids.size()))
+            .longitudes(Arrays.copyOf(values[1], ids.size()))
+            .wasteLevelValues(Arrays.copyOf(values[2], ids.size()))
+            .wasteLevelStatuses(statuses)
+            .forecastWasteLevelValues(predictedFullBy != null ? Arrays.copyOf(values[3], ids.size()) : null)
+            .build();
+    }
+
+    @Override
+    public ZoneVersionDto getZoneVersion(Long customerId, Long cityId, String zoneId) {
+        return jdbcTemplate.queryForObject(ZONE_VERSION_SQL, (rs, rowNum) -> {
+            Timestamp maxUpdatedAt = rs.getTimestamp("max_updated_at");
+            return ZoneVersionDto.builder()
+                .count(rs.getLong("count"))
+                .maxUpdatedAt(maxUpdatedAt == null ? null : maxUpdatedAt.toInstant())
+                .build();
+        }, zoneId, customerId, cityId);
+    }
+}
@@ -0,0 +1,120 @@
+package com.scgm.containers.service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Fill rate of each container as an exponentially weighted linear regression of the level over time, updated
+// in O(1) from each reading so no history has to be read back. The model is a small array kept in the
+// container row: the weighted sums of the regression with the time in hours relative to the last reading,
+// that reading, and the last fitted rate. Older readings lose half their weight every half-life, and a drop
+// of the level means the container was emptied, so the regression starts again keeping the last rate.
+@Component
+public class ContainerFillForecaster {
+
+    static final int WEIGHT = 0;
+    static final int SUM_T = 1;
+    static final int SUM_TT = 2;
+    static final int SUM_Y = 3;
+    static final int SUM_TY = 4;
+    static final int LAST_READ_AT = 5;
+    static final int LAST_LEVEL = 6;
+    static final int RATE = 7;
+    static final int MODEL_SIZE = 8;
+
+    // Weighted variance of the reading times, in hours², below which the slope is not trusted
+    private static final double MIN_TIME_VARIANCE = 0.25;
+    private static final double MAX_LEVEL = 100.0;
+    private static final Duration MAX_HORIZON = Duration.ofDays(365);
+
+    private final double fullLevel;
+    private final double halfLifeHours;
+    private final double emptiedDrop;
+
+    public ContainerFillForecaster(@Value("${scgm.forecast.full-level:80}") double fullLevel,
+        @Value("${scgm.forecast.half-life-hours:72}") double halfLifeHours,
+        @Value("${scgm.forecast.emptied-drop:20}") double emptiedDrop) {
+        this.fullLevel = fullLevel;
+        this.halfLifeHours = halfLifeHours;
+        this.emptiedDrop = emptiedDrop;
+    }
+
+    // New model with the reading applied, the previous one is not modified. Readings older than the
+    // last one applied are ignored.
+    public double[] update(double[] model, double level, Instant readAt) {
+        double readAtSeconds = readAt.toEpochMilli() / 1000.0;
+        if (model == null || model.length != MODEL_SIZE)
+            return start(level, readAtSeconds, Double.NaN);
+        double hours = (readAtSeconds - model[LAST_READ_AT]) / 3600;
+        if (hours < 0)
+            return model;
+        if (level < model[LAST_LEVEL] - emptiedDrop)
+            return start(level, readAtSeconds, model[RATE]);
+
+        // Moves the time origin to the new reading and decays the previous readings
+        double decay = Math.pow(0.5, hours / halfLifeHours);
+        double weight = model[WEIGHT];
+        double sumT = model[SUM_T];
+        double[] next = new double[MODEL_SIZE];
+        next[WEIGHT] = decay * weight + 1;
+        next[SUM_T] = decay * (sumT - hours * weight);
+        next[SUM_TT] = decay * (model[SUM_TT] - 2 * hours * sumT + hours * hours * weight);
+        next[SUM_Y] = decay * model[SUM_Y] + level;
+        next[SUM_TY] = decay * (model[SUM_TY] - hours * model[SUM_Y]);
+        next[LAST_READ_AT] = readAtSeconds;
+        next[LAST_LEVEL] = level;
+
+        double denominator = next[WEIGHT] * next[SUM_TT] - next[SUM_T] * next[SUM_T];
+        next[RATE] = denominator > MIN_TIME_VARIANCE * next[WEIGHT] * next[WEIGHT]
+            ? (next[WEIGHT] * next[SUM_TY] - next[SUM_T] * next[SUM_Y]) / denominator
+            : model[RATE];
+        return next;
+    }
+
+    // When the level reaches the full level, the time of the last reading when it already has, null when
+    // it is not filling or will not within a year
+    public Instant predictFullAt(double[] model) {
+        if (model == null || model.length != MODEL_SIZE)
+            return null;
+        double level = fittedLevel(model);
+        Instant lastReadAt = Instant.ofEpochMilli(Math.round(model[LAST_READ_AT] * 1000));
+        if (level >= fullLevel)
+            return lastReadAt;
+        double rate = model[RATE];
+        if (!(rate > 0))
+            return null;
+        Duration untilFull = Duration.ofSeconds(Math.round((fullLevel - level) / rate * 3600));
+        return untilFull.compareTo(MAX_HORIZON) > 0 ? null : lastReadAt.plus(untilFull);
+    }
+
+    // Level expected at the given time, between 0 and 100; the last level when the rate is not known yet
+    public static Double levelAt(double[] model, Instant time) {
+        if (model == null || model.length != MODEL_SIZE)
+            return null;
+        double rate = model[RATE];
+        if (Double.isNaN(rate))
+            return model[LAST_LEVEL];
+        double hours = Math.max(0, (time.toEpochMilli() / 1000.0 - model[LAST_READ_AT]) / 3600);
+        return Math.max(0, Math.min(MAX_LEVEL, fittedLevel(model) + Math.max(rate, 0) * hours));
+    }
+
+    // The regression line at the last reading, which smooths the sensor noise of that reading
+    private static double fittedLevel(double[] model) {
+        double rate = model[RATE];
+        if (Double.isNaN(rate) || model[WEIGHT] <= 0)
+            return model[LAST_LEVEL];
+        return (model[SUM_Y] - rate * model[SUM_T]) / model[WEIGHT];
+    }
+
+    private static double[] start(double level, double readAtSeconds, double rate) {
+        double[] model = new double[MODEL_SIZE];
+        model[WEIGHT] = 1;
+        model[SUM_Y] = level;
+        model[LAST_READ_AT] = readAtSeconds;
+        model[LAST_LEVEL] = level;
+        model[RATE] = rate;
+        return model;
+    }
+}
@@ -0,0 +1,157 @@
+package com.scgm.containers.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.scgm.containers.dto.ContainerLevelChangeDto;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Server-Sent Events subscriptions to container level changes, filtered by customer, city and zone.
+// Each subscriber keeps only the latest pending change per container and is drained by one task
+// at a time, so a slow client never blocks the publishers nor grows beyond one entry per container.
+@Component
+@Slf4j
+public class ContainerLevelBroker {
+
+    static final String LEVELS_EVENT = "container-levels";
+
+    private final long emitterTimeoutMs;
+    private final ExecutorService drainExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<CityKey, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    public ContainerLevelBroker(@Value("${scgm.container-events.timeout-ms:1800000}") long emitterTimeoutMs) {
+        this.emitterTimeoutMs = emitterTimeoutMs;
+    }
+
+    public SseEmitter subscribe(Long customerId, Long cityId, String zoneId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        CityKey key = new CityKey(customerId, cityId);
+        Subscriber subscriber = new Subscriber(emitter, zoneId);
+        subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        Runnable unsubscribe = () -> {
+            subscriber.closed = true;
+            subscribers.computeIfPresent(key, (k, citySubscribers) -> {
+                citySubscribers.remove(subscriber);
+                return citySubscribers.isEmpty() ? null : citySubscribers;
+            });
+        };
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        log.info("Container level subscription added, customer ID: {}, city ID: {}, zone ID: {}", customerId, cityId, zoneId);
+        return emitter;
+    }
+
+    public void publish(List<ContainerLevelChangeDto> changes) {
+        for (ContainerLevelChangeDto change : changes) {
+            var citySubscribers = subscribers.get(new CityKey(change.getCustomerId(), change.getCityId()));
+            if (citySubscribers == null)
+                continue;
+            for (Subscriber subscriber : citySubscribers) {
+                if (subscriber.accepts(change))
+                    subscriber.offer(change);
+            }
+        }
+    }
+
+    // Keeps proxies from closing idle connections and detects the clients that went away
+    @Scheduled(fixedDelayString = "${scgm.container-events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        subscribers.values().forEach(citySubscribers -> citySubscribers.forEach(Subscriber::heartbeat));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(citySubscribers -> citySubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        drainExecutor.shutdownNow();
+    }
+
+    record CityKey(Long customerId, Long cityId) {
+    }
+
+    final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final String zoneId;
+        private final Map<String, ContainerLevelChangeDto> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, String zoneId) {
+            this.emitter = emitter;
+            this.zoneId = zoneId;
+        }
+
+        boolean accepts(ContainerLevelChangeDto change) {
+            return !closed && (zoneId == null || zoneId.equals(change.getZoneId()));
+        }
+
+        void offer(ContainerLevelChangeDto change) {
+            // Coalesce with the change not yet sent, keeping the status the client saw last
+            pending.merge(change.getId(), change,
+                (notSent, latest) -> latest.toBuilder().previousStatus(notSent.getPreviousStatus()).build());
+            scheduleDrain();
+        }
+
+        void heartbeat() {
+            if (closed || !draining.compareAndSet(false, true))
+                return;
+            drainExecutor.execute(() -> {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (Exception e) {
+                    close(e);
+                } finally {
+                    draining.set(false);
+                }
+                scheduleDrain();
+            });
+        }
+
+        private void scheduleDrain() {
+            if (!closed && !pending.isEmpty() && draining.compareAndSet(false, true))
+                drainExecutor.execute(this::drain);
+        }
+
+        private void drain() {
+            try {
+                while (!closed && !pending.isEmpty()) {
+                    List<ContainerLevelChangeDto> batch = new ArrayList<>(pending.size());
+                    for (String containerId : pending.keySet()) {
+                        var change = pending.remove(containerId);
+                        if (change != null)
+                            batch.add(change);
+                    }
+                    emitter.send(SseEmitter.event().name(LEVELS_EVENT).data(batch, MediaType.APPLICATION_JSON));
+                }
+            } catch (Exception e) {
+                close(e);
+            } finally {
+                draining.set(false);
+            }
+            // Changes offered after the last check but before the flag was released
+            scheduleDrain();
+        }
+
+        private void close(Exception e) {
+            closed = true;
+            pending.clear();
+            log.debug("Container level subscriber closed: {}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+}
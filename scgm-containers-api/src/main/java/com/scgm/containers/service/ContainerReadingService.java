@@ -0,0 +1,15 @@
+package com.scgm.containers.service;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.scgm.containers.dto.ContainerReadingDto;
+
+public interface ContainerReadingService {
+
+    public List<ContainerReadingDto> findByContainerId(Long customerId, String containerId, Instant from, Instant to,
+        Integer limit);
+
+    public void maintainPartitions();
+
+}
@@ -0,0 +1,85 @@
+package com.scgm.containers.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.scgm.containers.dto.ContainerReadingDto;
+import com.scgm.containers.exceptions.ContainerValidationException;
+import com.scgm.containers.exceptions.ContainersDatabaseException;
+import com.scgm.containers.repository.ContainerReadingRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+public class ContainerReadingServiceImpl implements ContainerReadingService {
+
+    private static final int DEFAULT_LIMIT = 500;
+    private static final int MAX_LIMIT = 2000;
+    private static final Duration DEFAULT_PERIOD = Duration.ofDays(7);
+
+    private final ContainerReadingRepository containerReadingRepository;
+    private final int retentionMonths;
+    private final int monthsAhead;
+
+    public ContainerReadingServiceImpl(ContainerReadingRepository containerReadingRepository,
+        @Value("${scgm.readings.retention-months:6}") int retentionMonths,
+        @Value("${scgm.readings.months-ahead:2}") int monthsAhead) {
+        this.containerReadingRepository = containerReadingRepository;
+        this.retentionMonths = retentionMonths;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @Override
+    public List<ContainerReadingDto> findByContainerId(Long customerId, String containerId, Instant from, Instant to,
+        Integer limit) {
+        Instant toValue = to != null ? to : Instant.now();
+        Instant fromValue = from != null ? from : toValue.minus(DEFAULT_PERIOD);
+        int limitValue = limit != null ? limit : DEFAULT_LIMIT;
+        List<String> listErrors = new ArrayList<>();
+        if (!fromValue.isBefore(toValue))
+            listErrors.add("from: must be before to");
+        if (limitValue <= 0 || limitValue > MAX_LIMIT)
+            listErrors.add("limit: must be between 1 and " + MAX_LIMIT);
+        if (!listErrors.isEmpty())
+            throw new ContainerValidationException("Trying to find readings: error request validation.", listErrors);
+        try {
+            return containerReadingRepository.findByContainerId(customerId, containerId, fromValue, toValue,
+                limitValue);
+        } catch (Exception e) {
+            log.error("Error finding readings for container ID: {}", containerId, e);
+            throw new ContainersDatabaseException("Error finding container readings", e);
+        }
+    }
+
+    // Partitions are created ahead of time so inserts never miss one, expired months are dropped
+    // as whole tables instead of deleting rows.
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${scgm.readings.maintenance-cron:0 15 3 * * *}")
+    public void maintainPartitions() {
+        LocalDate currentMonth = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+        try {
+            for (int i = 0; i <= monthsAhead; i++)
+                containerReadingRepository.createPartition(currentMonth.plusMonths(i));
+            if (retentionMonths > 0) {
+                var dropped = containerReadingRepository.dropPartitionsBefore(currentMonth.minusMonths(retentionMonths));
+                if (dropped != null && dropped > 0)
+                    log.info("Dropped {} expired container readings partitions", dropped);
+            }
+        } catch (Exception e) {
+            log.error("Error maintaining container readings partitions", e);
+        }
+    }
+
+}
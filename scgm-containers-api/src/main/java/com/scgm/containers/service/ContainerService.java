@@ -1,16 +1,23 @@
 package com.scgm.containers.service;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.scgm.containers.dto.BoundsDto;
 import com.scgm.containers.dto.ContainerAddDto;
+import com.scgm.containers.dto.ContainerColumnsDto;
 import com.scgm.containers.dto.ContainerDto;
+import com.scgm.containers.dto.ContainerPageDto;
 import com.scgm.containers.dto.ContainerSearchParamsDto;
 import com.scgm.containers.dto.ContainerUpdateDto;
 import com.scgm.containers.dto.ContainerAddSendorDto;
 import com.scgm.containers.dto.ContainerStatusSummaryDto;
 import com.scgm.containers.dto.ContainerZoneUpdateDto;
+import com.scgm.containers.dto.ZoneVersionDto;
 import com.scgm.containers.entity.ContainerEntity.WasteLevel;
 
 public interface ContainerService {
@@ -27,20 +34,33 @@ public interface ContainerService {
 
     public List<ContainerDto> findByCustomerId(Long customerId);
 
+    public void streamByCustomerIdAndCityId(Long customerId, Long cityId, Consumer<ContainerDto> consumer);
+
     public List<ContainerDto> findByCustomerIdAndCityId(Long customerId, Long cityId, Integer limit, Boolean hasZoneId);
 
-    public List<ContainerDto> findByCustomerIdAndCityIdPaginated(Long customerId, Long cityId, ContainerSearchParamsDto searchParams);
+    public ContainerPageDto findByCustomerIdAndCityIdPaginated(Long customerId, Long cityId, ContainerSearchParamsDto searchParams);
 
     public List<ContainerDto> findByCustomerIdAndCityIdAndZoneId(Long customerId, Long cityId, String zoneId, Integer limit);
 
+    public ContainerColumnsDto findColumnsByCustomerIdAndCityIdAndZoneId(Long customerId, Long cityId, String zoneId,
+        List<WasteLevel> wasteLevelStatuses, Double minWasteLevelValue, Instant predictedFullBy);
+
+    public ZoneVersionDto getZoneVersion(Long customerId, Long cityId, String zoneId);
+
+    public SseEmitter subscribeLevelChanges(Long customerId, Long cityId, String zoneId);
+
+    public List<ContainerDto> findInBounds(Long customerId, Long cityId, BoundsDto bounds);
+
     public ContainerDto update(String containerId, ContainerUpdateDto containerUpdate);
 
     public void delete(String containerId);
 
-    public Optional<ContainerStatusSummaryDto> getStatusSummary(Long cityId);
+    public Optional<ContainerStatusSummaryDto> getStatusSummary(Long customerId, Long cityId, String zoneId);
 
     public ContainerDto addSensorData(ContainerAddSendorDto containerAddSendor);
 
+    public int addSensorDataBatch(List<ContainerAddSendorDto> containerAddSendorList);
+
     public void updateMultipleZonesId(Long customerId, List<ContainerZoneUpdateDto> containerZoneUpdates);
 
 }
\ No newline at end of file
@@ -1,29 +1,47 @@
 package com.scgm.containers.service;
 
+import java.io.UncheckedIOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.scgm.containers.dto.BoundsDto;
 import com.scgm.containers.dto.ContainerAddDto;
+import com.scgm.containers.dto.ContainerColumnsDto;
 import com.scgm.containers.dto.ContainerAddSendorDto;
+import com.scgm.containers.dto.ContainerReadingDto;
 import com.scgm.containers.dto.ContainerDto;
+import com.scgm.containers.dto.ContainerLevelChangeDto;
+import com.scgm.containers.dto.ContainerPageDto;
 import com.scgm.containers.dto.ContainerSearchParamsDto;
+import com.scgm.containers.dto.ContainerStatusDto;
 import com.scgm.containers.dto.ContainerStatusSummaryDto;
 import com.scgm.containers.dto.ContainerUpdateDto;
 import com.scgm.containers.dto.ContainerZoneUpdateDto;
+import com.scgm.containers.dto.ZoneVersionDto;
 import com.scgm.containers.entity.ContainerEntity;
 import com.scgm.containers.entity.ContainerEntity.WasteLevel;
+import com.scgm.containers.event.ContainerLevelChangedEvent;
 import com.scgm.containers.exceptions.ContainerNotFoundException;
 import com.scgm.containers.exceptions.ContainerValidationException;
 import com.scgm.containers.exceptions.ContainersDatabaseException;
+import com.scgm.containers.repository.ContainerReadingRepository;
 import com.scgm.containers.repository.ContainerRepository;
+import com.scgm.containers.util.CursorUtil;
+import com.scgm.containers.util.TransactionUtil;
 import com.scgm.containers.util.WasteLevelUtil;
 
 import lombok.AllArgsConstructor;
@@ -35,6 +53,12 @@ import lombok.extern.slf4j.Slf4j;
 public class ContainerServiceImpl implements ContainerService {
 
     private final ContainerRepository containerRepository;
+    private final ContainerReadingRepository containerReadingRepository;
+    private final ContainerSpatialIndex containerSpatialIndex;
+    private final ContainerStatusCounters containerStatusCounters;
+    private final ContainerLevelBroker containerLevelBroker;
+    private final ContainerFillForecaster containerFillForecaster;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Override
     public ContainerDto add(ContainerAddDto containerAdd) {
@@ -45,12 +69,16 @@ public class ContainerServiceImpl implements ContainerService {
         var listErrors = containerEntity.validate();
         if (!listErrors.isEmpty())
             throw new ContainerValidationException("Trying to add: error container entity validation.", listErrors);
+        ContainerDto containerDto;
         try {
-            return ContainerDto.toDto(containerRepository.save(containerEntity));
+            containerDto = ContainerDto.toDto(containerRepository.save(containerEntity));
         } catch (Exception e) {
             log.error("Error trying to add container with id: {}", containerEntity.getId(), e);
             throw new ContainersDatabaseException("Error trying to add container", e);
         }
+        containerSpatialIndex.upsert(containerDto);
+        containerStatusCounters.put(containerDto);
+        return containerDto;
     }
 
     @Override
@@ -97,6 +125,22 @@ public class ContainerServiceImpl implements ContainerService {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void streamByCustomerIdAndCityId(Long customerId, Long cityId, Consumer<ContainerDto> consumer) {
+        log.info("Streaming containers for customer ID: {}, city ID: {}", customerId, cityId);
+        try {
+            containerRepository.streamByCustomerIdAndCityId(customerId, cityId,
+                container -> consumer.accept(ContainerDto.toDto(container)));
+        } catch (UncheckedIOException e) {
+            // Raised by the consumer, usually the client closed the connection
+            throw e;
+        } catch (Exception e) {
+            log.error("Error trying to stream containers by customer ID: {} and city ID: {}", customerId, cityId, e);
+            throw new ContainersDatabaseException("Error trying to stream containers", e);
+        }
+    }
+
     @Override
     public List<ContainerDto> findByCustomerIdAndCityId(Long customerId, Long cityId, Integer limit, Boolean hasZoneId) {
         try {
@@ -119,7 +163,7 @@ public class ContainerServiceImpl implements ContainerService {
     }
 
     @Override
-    public List<ContainerDto> findByCustomerIdAndCityIdPaginated(Long customerId, Long cityId, ContainerSearchParamsDto searchParams) {
+    public ContainerPageDto findByCustomerIdAndCityIdPaginated(Long customerId, Long cityId, ContainerSearchParamsDto searchParams) {
         var reqListErrors = searchParams.validate();
         if (!reqListErrors.isEmpty())
             throw new ContainerValidationException("Error in search parameters validation.", reqListErrors);
@@ -131,14 +175,20 @@ public class ContainerServiceImpl implements ContainerService {
                 limit = 500;
             if (limit > 2000)
                 limit = 2000;
-            String wasteLevelStatus = searchParams.getWasteLevelStatus() != null ? 
-                searchParams.getWasteLevelStatus().toString() : null;
-            return containerRepository.findByCustomerIdAndCityIdPaginatedDynamic(
+            searchParams.setLimit(limit);
+            List<ContainerDto> containers = containerRepository.findByCustomerIdAndCityIdPaginatedDynamic(
                 customerId, 
                 cityId, 
                 searchParams
             ).stream().map(ContainerDto::toDto)
             .collect(Collectors.toList());
+            // A full page means there may be more rows after the last one, limit 0 returns all the remaining rows
+            String nextCursor = null;
+            if (limit > 0 && containers.size() == limit) {
+                var last = containers.get(containers.size() - 1);
+                nextCursor = CursorUtil.encode(last.getUpdatedAt(), last.getId());
+            }
+            return ContainerPageDto.builder().containers(containers).nextCursor(nextCursor).build();
         } catch (Exception e) {
             log.error("Error trying to find containers paginated by customer ID: {} and city ID: {}", customerId, cityId, e);
             throw new ContainersDatabaseException("Error trying to find containers", e);
@@ -164,6 +214,58 @@ public class ContainerServiceImpl implements ContainerService {
         }
     }
 
+    @Override
+    public ContainerColumnsDto findColumnsByCustomerIdAndCityIdAndZoneId(Long customerId, Long cityId, String zoneId,
+        List<WasteLevel> wasteLevelStatuses, Double minWasteLevelValue, Instant predictedFullBy) {
+        if (zoneId == null || !ContainerEntity.UUID_PATTERN.matcher(zoneId).matches())
+            throw new ContainerValidationException("zoneId: invalid UUID format", List.of("zoneId: invalid UUID format"));
+        if (minWasteLevelValue != null && (minWasteLevelValue < 0 || minWasteLevelValue > 100))
+            throw new ContainerValidationException("minWasteLevelValue: must be between 0 and 100",
+                List.of("minWasteLevelValue: must be between 0 and 100"));
+        try {
+            return containerRepository.findColumnsByCustomerIdAndCityIdAndZoneId(customerId, cityId, zoneId,
+                wasteLevelStatuses, minWasteLevelValue, predictedFullBy);
+        } catch (Exception e) {
+            log.error("Error trying to find container columns by customer ID: {}, city ID: {} and zone ID: {}",
+                customerId, cityId, zoneId, e);
+            throw new ContainersDatabaseException("Error trying to find containers", e);
+        }
+    }
+
+    @Override
+    public ZoneVersionDto getZoneVersion(Long customerId, Long cityId, String zoneId) {
+        if (zoneId == null || !ContainerEntity.UUID_PATTERN.matcher(zoneId).matches())
+            throw new ContainerValidationException("zoneId: invalid UUID format", List.of("zoneId: invalid UUID format"));
+        try {
+            return containerRepository.getZoneVersion(customerId, cityId, zoneId);
+        } catch (Exception e) {
+            log.error("Error trying to get the version of zone ID: {} for customer ID: {} and city ID: {}",
+                zoneId, customerId, cityId, e);
+            throw new ContainersDatabaseException("Error trying to get zone version", e);
+        }
+    }
+
+    @Override
+    public SseEmitter subscribeLevelChanges(Long customerId, Long cityId, String zoneId) {
+        if (zoneId != null && !ContainerEntity.UUID_PATTERN.matcher(zoneId).matches())
+            throw new ContainerValidationException("zoneId: invalid UUID format", List.of("zoneId: invalid UUID format"));
+        return containerLevelBroker.subscribe(customerId, cityId, zoneId);
+    }
+
+    @Override
+    public List<ContainerDto> findInBounds(Long customerId, Long cityId, BoundsDto bounds) {
+        var reqListErrors = bounds.validate();
+        if (!reqListErrors.isEmpty())
+            throw new ContainerValidationException("Trying to find in bounds: error request validation.", reqListErrors);
+        try {
+            return containerSpatialIndex.findInBounds(customerId, cityId, bounds.getStartLat(), bounds.getEndLat(),
+                bounds.getStartLng(), bounds.getEndLng(), bounds.getLimit());
+        } catch (Exception e) {
+            log.error("Error finding containers in bounds for customer ID: {} and city ID: {}", customerId, cityId, e);
+            throw new ContainersDatabaseException("Error finding containers in bounds", e);
+        }
+    }
+
     @Override
     @Transactional
     public ContainerDto update(String containerId, ContainerUpdateDto containerUpdate) {
@@ -176,12 +278,18 @@ public class ContainerServiceImpl implements ContainerService {
         var listErrors = containerToUpdate.validate();
         if (!listErrors.isEmpty())
             throw new ContainerValidationException("Trying to update: error container entity validation.", listErrors);
+        ContainerDto containerDto;
         try {
-            return ContainerDto.toDto(containerRepository.save(containerToUpdate));
+            containerDto = ContainerDto.toDto(containerRepository.save(containerToUpdate));
         } catch (Exception e) {
             log.error("Error trying to update container with ID: {}", containerToUpdate.getId(), e);
             throw new ContainersDatabaseException("Error trying to update container", e);
         }
+        TransactionUtil.afterCommit(() -> {
+            containerSpatialIndex.upsert(containerDto);
+            containerStatusCounters.put(containerDto);
+        });
+        return containerDto;
     }
 
     @Override
@@ -196,14 +304,24 @@ public class ContainerServiceImpl implements ContainerService {
             log.error("Error trying to delete container with ID: {}", containerId, e);
             throw new ContainersDatabaseException("Error trying to delete container", e);
         }
+        TransactionUtil.afterCommit(() -> {
+            containerSpatialIndex.remove(containerId);
+            containerStatusCounters.remove(containerId);
+        });
     }
 
     @Override
-    public Optional<ContainerStatusSummaryDto> getStatusSummary(Long cityId) {
-        log.info("Getting status summary for city ID: {}", cityId);
+    public Optional<ContainerStatusSummaryDto> getStatusSummary(Long customerId, Long cityId, String zoneId) {
+        if (zoneId != null && !ContainerEntity.UUID_PATTERN.matcher(zoneId).matches())
+            throw new ContainerValidationException("zoneId: invalid UUID format", List.of("zoneId: invalid UUID format"));
+        log.info("Getting status summary for customer ID: {}, city ID: {}, zone ID: {}", customerId, cityId, zoneId);
+        var countersSummary = containerStatusCounters.getSummary(customerId, cityId, zoneId);
+        if (countersSummary.isPresent())
+            return countersSummary;
+        // Counters not loaded yet
         Map<String, Long> statusSummaryMap = new HashMap<>();
         try {
-            statusSummaryMap = containerRepository.getStatusSummary(cityId);   
+            statusSummaryMap = containerRepository.getStatusSummary(customerId, cityId, zoneId);   
         } catch (Exception e) {
             log.error("Error trying to get status summary for city ID: {}", cityId, e);
             throw new ContainersDatabaseException("Error trying to get status summary", e);
@@ -246,19 +364,147 @@ public class ContainerServiceImpl implements ContainerService {
         var containerOpt = containerRepository.findById(containerAddSendor.getId());
         containerOpt.orElseThrow(() -> new ContainerNotFoundException(containerAddSendor.getId()));
         ContainerEntity existingContainer = containerOpt.get();
+        WasteLevel previousStatus = existingContainer.getWasteLevelStatus();
         existingContainer.setWasteLevelValue(containerAddSendor.getWasteLevelValue());
         existingContainer.setWasteLevelStatus(WasteLevelUtil.getWasteLevelFromDouble(containerAddSendor.getWasteLevelValue()));
         existingContainer.setTemperature(containerAddSendor.getTemperature());
         existingContainer.setUpdatedAt(Instant.now());
+        Instant readAt = containerAddSendor.resolveReadAt(existingContainer.getUpdatedAt());
+        existingContainer.setFillModel(containerFillForecaster.update(existingContainer.getFillModel(),
+            containerAddSendor.getWasteLevelValue(), readAt));
+        existingContainer.setPredictedFullAt(containerFillForecaster.predictFullAt(existingContainer.getFillModel()));
         var listErrors = existingContainer.validate();
         if (!listErrors.isEmpty())
             throw new ContainerValidationException("Trying to add sensor data: error entity validation.", listErrors);
+        ContainerDto containerDto;
         try {
-            return ContainerDto.toDto(containerRepository.save(existingContainer));
+            containerDto = ContainerDto.toDto(containerRepository.save(existingContainer));
+            containerReadingRepository.insertAll(List.of(
+                ContainerReadingDto.fromSensorDto(containerAddSendor, existingContainer.getUpdatedAt())));
         } catch (Exception e) {
             log.error("Error trying to add sensor data for container ID: {}", existingContainer.getId(), e);
             throw new ContainersDatabaseException("Error trying to add sensor data", e);
         }
+        TransactionUtil.afterCommit(() -> {
+            containerSpatialIndex.upsert(containerDto);
+            containerStatusCounters.put(containerDto);
+        });
+        if (previousStatus != containerDto.getWasteLevelStatus())
+            applicationEventPublisher.publishEvent(new ContainerLevelChangedEvent(List.of(ContainerLevelChangeDto.builder()
+                    .id(containerDto.getId())
+                    .customerId(containerDto.getCustomerId())
+                    .cityId(containerDto.getCityId())
+                    .zoneId(containerDto.getZoneId())
+                    .wasteLevelValue(containerDto.getWasteLevelValue())
+                    .previousStatus(previousStatus)
+                    .wasteLevelStatus(containerDto.getWasteLevelStatus())
+                    .temperature(containerDto.getTemperature())
+                    .updatedAt(containerDto.getUpdatedAt())
+                    .build())));
+        return containerDto;
+    }
+
+    @Override
+    @Transactional
+    public int addSensorDataBatch(List<ContainerAddSendorDto> containerAddSendorList) {
+        // Coalesce by container id keeping the latest reading; the sorted map also gives a
+        // stable row lock order so concurrent batches can't deadlock each other.
+        Map<String, ContainerAddSendorDto> latestById = new TreeMap<>();
+        List<ContainerAddSendorDto> validReadings = new ArrayList<>(containerAddSendorList.size());
+        for (ContainerAddSendorDto containerAddSendor : containerAddSendorList) {
+            var reqListErrors = containerAddSendor.validate();
+            if (!reqListErrors.isEmpty()) {
+                log.warn("Discarding sensor data for container ID: {}, errors: {}", containerAddSendor.getId(), reqListErrors);
+                continue;
+            }
+            validReadings.add(containerAddSendor);
+            latestById.put(containerAddSendor.getId(), containerAddSendor);
+        }
+        if (latestById.isEmpty())
+            return 0;
+        Instant updatedAt = Instant.now();
+        // The locked rows give the status before this batch for the level change events
+        Map<String, ContainerStatusDto> previousStates;
+        try {
+            previousStates = containerRepository.findSensorStates(latestById.keySet());
+        } catch (Exception e) {
+            log.error("Error trying to read the sensor state of {} containers", latestById.size(), e);
+            throw new ContainersDatabaseException("Error trying to add sensor data batch", e);
+        }
+        // Unlike the row update, the fill models take every reading of the batch in arrival order
+        Map<String, double[]> fillModels = new HashMap<>();
+        previousStates.forEach((id, state) -> fillModels.put(id, state.getFillModel()));
+        for (ContainerAddSendorDto reading : validReadings) {
+            Instant readAt = reading.resolveReadAt(updatedAt);
+            fillModels.put(reading.getId(),
+                containerFillForecaster.update(fillModels.get(reading.getId()), reading.getWasteLevelValue(), readAt));
+        }
+        List<ContainerEntity> containersToUpdate = new ArrayList<>(latestById.size());
+        for (ContainerAddSendorDto containerAddSendor : latestById.values()) {
+            double[] fillModel = fillModels.get(containerAddSendor.getId());
+            containersToUpdate.add(ContainerEntity.builder()
+                    .id(containerAddSendor.getId())
+                    .wasteLevelValue(containerAddSendor.getWasteLevelValue())
+                    .wasteLevelStatus(WasteLevelUtil.getWasteLevelFromDouble(containerAddSendor.getWasteLevelValue()))
+                    .temperature(containerAddSendor.getTemperature())
+                    .updatedAt(updatedAt)
+                    .fillModel(fillModel)
+                    .predictedFullAt(containerFillForecaster.predictFullAt(fillModel))
+                    .build());
+        }
+        int[] updateCounts;
+        try {
+            updateCounts = containerRepository.batchUpdateSensorData(containersToUpdate);
+        } catch (Exception e) {
+            log.error("Error trying to add sensor data batch of {} containers", containersToUpdate.size(), e);
+            throw new ContainersDatabaseException("Error trying to add sensor data batch", e);
+        }
+        Set<String> notFoundIds = new HashSet<>();
+        List<ContainerLevelChangeDto> levelChanges = new ArrayList<>();
+        List<Runnable> memoryChanges = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            var container = containersToUpdate.get(i);
+            if (updateCounts[i] == 0) {
+                log.warn("Sensor data discarded, container not found, id: {}", container.getId());
+                notFoundIds.add(container.getId());
+            } else {
+                var previous = previousStates.get(container.getId());
+                memoryChanges.add(() -> {
+                    containerSpatialIndex.updateSensorData(container.getId(), container.getWasteLevelValue(),
+                        container.getWasteLevelStatus(), container.getTemperature(), updatedAt,
+                        container.getPredictedFullAt());
+                    containerStatusCounters.updateLevel(container.getId(), container.getWasteLevelStatus());
+                });
+                if (previous != null && previous.getWasteLevelStatus() != container.getWasteLevelStatus())
+                    levelChanges.add(ContainerLevelChangeDto.builder()
+                            .id(container.getId())
+                            .customerId(previous.getCustomerId())
+                            .cityId(previous.getCityId())
+                            .zoneId(previous.getZoneId())
+                            .wasteLevelValue(container.getWasteLevelValue())
+                            .previousStatus(previous.getWasteLevelStatus())
+                            .wasteLevelStatus(container.getWasteLevelStatus())
+                            .temperature(container.getTemperature())
+                            .updatedAt(updatedAt)
+                            .build());
+            }
+        }
+        if (!levelChanges.isEmpty())
+            applicationEventPublisher.publishEvent(new ContainerLevelChangedEvent(levelChanges));
+        // Every reading goes to the history, not only the latest one of each container
+        List<ContainerReadingDto> readings = validReadings.stream()
+            .filter(reading -> !notFoundIds.contains(reading.getId()))
+            .map(reading -> ContainerReadingDto.fromSensorDto(reading, updatedAt))
+            .toList();
+        try {
+            if (!readings.isEmpty())
+                containerReadingRepository.insertAll(readings);
+        } catch (Exception e) {
+            log.error("Error trying to append {} sensor readings", readings.size(), e);
+            throw new ContainersDatabaseException("Error trying to add sensor data batch", e);
+        }
+        TransactionUtil.afterCommit(() -> memoryChanges.forEach(Runnable::run));
+        return containersToUpdate.size() - notFoundIds.size();
     }
 
     @Override
@@ -271,8 +517,13 @@ public class ContainerServiceImpl implements ContainerService {
         }
         try {
             for (ContainerZoneUpdateDto update : containerZoneUpdates) {
-                containerRepository.updateZoneIdByContainerIdAndCustomerId(customerId, 
-                    update.getContainerId(), update.getZoneId());
+                if (containerRepository.updateZoneIdByContainerIdAndCustomerId(customerId, 
+                    update.getContainerId(), update.getZoneId()) > 0) {
+                    TransactionUtil.afterCommit(() -> {
+                        containerSpatialIndex.updateZoneId(customerId, update.getContainerId(), update.getZoneId());
+                        containerStatusCounters.updateZoneId(update.getContainerId(), update.getZoneId());
+                    });
+                }
             }
         } catch (Exception e) {
             log.error("Error updating multiple zones for customer ID: {}", customerId, e);
@@ -280,4 +531,4 @@ public class ContainerServiceImpl implements ContainerService {
         }
     }
 
-}
\ No newline at end of file
+}
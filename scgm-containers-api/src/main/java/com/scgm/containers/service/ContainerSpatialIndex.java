@@ -0,0 +1,309 @@
+package com.scgm.containers.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.scgm.containers.dto.ContainerDto;
+import com.scgm.containers.entity.ContainerEntity.WasteLevel;
+import com.scgm.containers.repository.ContainerRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// In memory uniform grid over container coordinates, one grid per customer and city.
+// Grids are loaded from the database on first use and reloaded after the ttl, so changes
+// made by other instances are picked up; changes made by this instance are applied directly.
+// A reload runs in the background, once per city, and the expired grid is served until it is swapped.
+@Component
+@Slf4j
+public class ContainerSpatialIndex {
+
+    // About 1.1 km of latitude per cell
+    static final double CELL_SIZE = 0.01;
+
+    private static final Comparator<ContainerDto> BY_UPDATED_AT_DESC = Comparator.comparing(
+        ContainerDto::getUpdatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final ContainerRepository containerRepository;
+    private final long ttlMillis;
+    private final Map<CityKey, CityGrid> grids = new ConcurrentHashMap<>();
+    private final Map<CityKey, CompletableFuture<CityGrid>> loads = new ConcurrentHashMap<>();
+    private final ExecutorService reloadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ContainerSpatialIndex(ContainerRepository containerRepository,
+        @Value("${scgm.spatial-index.ttl-seconds:60}") long ttlSeconds) {
+        this.containerRepository = containerRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public List<ContainerDto> findInBounds(Long customerId, Long cityId, double startLat, double endLat,
+        double startLng, double endLng, int limit) {
+        return grid(customerId, cityId).query(Math.min(startLat, endLat), Math.max(startLat, endLat),
+            Math.min(startLng, endLng), Math.max(startLng, endLng), limit);
+    }
+
+    public void upsert(ContainerDto container) {
+        CityKey key = new CityKey(container.getCustomerId(), container.getCityId());
+        grids.forEach((gridKey, grid) -> {
+            if (gridKey.equals(key))
+                grid.put(container);
+            else
+                grid.remove(container.getId());
+        });
+    }
+
+    public void remove(String containerId) {
+        grids.values().forEach(grid -> grid.remove(containerId));
+    }
+
+    public void updateSensorData(String containerId, Double wasteLevelValue, WasteLevel wasteLevelStatus,
+        Double temperature, Instant updatedAt, Instant predictedFullAt) {
+        for (CityGrid grid : grids.values()) {
+            if (grid.updateSensorData(containerId, wasteLevelValue, wasteLevelStatus, temperature, updatedAt,
+                predictedFullAt))
+                return;
+        }
+    }
+
+    public void updateZoneId(Long customerId, String containerId, String zoneId) {
+        grids.forEach((gridKey, grid) -> {
+            if (Objects.equals(gridKey.customerId(), customerId))
+                grid.updateZoneId(containerId, zoneId);
+        });
+    }
+
+    public void clearZoneId(String zoneId) {
+        grids.values().forEach(grid -> grid.clearZoneId(zoneId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloadExecutor.shutdownNow();
+    }
+
+    // Only the first query of a city waits for its load, later ones get the current grid
+    private CityGrid grid(Long customerId, Long cityId) {
+        CityKey key = new CityKey(customerId, cityId);
+        CityGrid grid = grids.get(key);
+        if (grid == null) {
+            try {
+                return load(key, Runnable::run).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        if (grid.isExpired(System.currentTimeMillis(), ttlMillis))
+            load(key, reloadExecutor);
+        return grid;
+    }
+
+    // Single flight per city: the scan runs outside both maps and its grid replaces the current one when done
+    private CompletableFuture<CityGrid> load(CityKey key, Executor executor) {
+        CompletableFuture<CityGrid> load = new CompletableFuture<>();
+        CompletableFuture<CityGrid> running = loads.putIfAbsent(key, load);
+        if (running != null)
+            return running;
+        executor.execute(() -> {
+            try {
+                long now = System.currentTimeMillis();
+                var containers = containerRepository.findByCustomerIdAndCityId(key.customerId(), key.cityId(), 0);
+                CityGrid grid = new CityGrid(now);
+                containers.forEach(container -> grid.put(ContainerDto.toDto(container)));
+                grids.put(key, grid);
+                log.info("Spatial index loaded for customer ID: {}, city ID: {}, containers: {}",
+                    key.customerId(), key.cityId(), containers.size());
+                load.complete(grid);
+            } catch (RuntimeException e) {
+                log.error("Error trying to load the spatial index for customer ID: {}, city ID: {}",
+                    key.customerId(), key.cityId(), e);
+                load.completeExceptionally(e);
+            } finally {
+                loads.remove(key, load);
+            }
+        });
+        return load;
+    }
+
+    static int cell(double coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    static long cellKey(int latCell, int lngCell) {
+        return ((long) latCell << 32) | (lngCell & 0xffffffffL);
+    }
+
+    record CityKey(Long customerId, Long cityId) {
+    }
+
+    static final class CityGrid {
+
+        private final long loadedAt;
+        private final Map<String, ContainerDto> byId = new HashMap<>();
+        private final Map<Long, Map<String, ContainerDto>> cells = new HashMap<>();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        CityGrid(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        boolean isExpired(long now, long ttlMillis) {
+            return ttlMillis > 0 && now - loadedAt > ttlMillis;
+        }
+
+        void put(ContainerDto container) {
+            if (container.getId() == null || container.getLatitude() == null || container.getLongitude() == null)
+                return;
+            ContainerDto copy = copy(container);
+            lock.writeLock().lock();
+            try {
+                removeUnlocked(copy.getId());
+                byId.put(copy.getId(), copy);
+                cells.computeIfAbsent(cellKeyOf(copy), k -> new HashMap<>()).put(copy.getId(), copy);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(String containerId) {
+            lock.writeLock().lock();
+            try {
+                removeUnlocked(containerId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        boolean updateSensorData(String containerId, Double wasteLevelValue, WasteLevel wasteLevelStatus,
+            Double temperature, Instant updatedAt, Instant predictedFullAt) {
+            lock.writeLock().lock();
+            try {
+                ContainerDto container = byId.get(containerId);
+                if (container == null)
+                    return false;
+                container.setWasteLevelValue(wasteLevelValue);
+                container.setWasteLevelStatus(wasteLevelStatus);
+                container.setTemperature(temperature);
+                container.setUpdatedAt(updatedAt);
+                container.setPredictedFullAt(predictedFullAt);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void updateZoneId(String containerId, String zoneId) {
+            lock.writeLock().lock();
+            try {
+                ContainerDto container = byId.get(containerId);
+                if (container != null)
+                    container.setZoneId(zoneId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void clearZoneId(String zoneId) {
+            lock.writeLock().lock();
+            try {
+                byId.values().stream()
+                    .filter(container -> zoneId.equals(container.getZoneId()))
+                    .forEach(container -> container.setZoneId(null));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // Returns copies sorted by updatedAt desc, limit <= 0 means no limit
+        List<ContainerDto> query(double minLat, double maxLat, double minLng, double maxLng, int limit) {
+            int minLatCell = cell(minLat);
+            int maxLatCell = cell(maxLat);
+            int minLngCell = cell(minLng);
+            int maxLngCell = cell(maxLng);
+            List<ContainerDto> found = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                long cellCount = (long) (maxLatCell - minLatCell + 1) * (maxLngCell - minLngCell + 1);
+                if (cellCount > cells.size()) {
+                    // Viewport wider than the populated area, walking the occupied cells is cheaper
+                    cells.values().forEach(cell -> collect(cell, minLat, maxLat, minLng, maxLng, found));
+                } else {
+                    for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+                        for (int lngCell = minLngCell; lngCell <= maxLngCell; lngCell++) {
+                            var cell = cells.get(cellKey(latCell, lngCell));
+                            if (cell != null)
+                                collect(cell, minLat, maxLat, minLng, maxLng, found);
+                        }
+                    }
+                }
+                found.sort(BY_UPDATED_AT_DESC);
+                int size = limit > 0 ? Math.min(limit, found.size()) : found.size();
+                List<ContainerDto> result = new ArrayList<>(size);
+                for (int i = 0; i < size; i++)
+                    result.add(copy(found.get(i)));
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private static void collect(Map<String, ContainerDto> cell, double minLat, double maxLat,
+            double minLng, double maxLng, List<ContainerDto> found) {
+            for (ContainerDto container : cell.values()) {
+                double lat = container.getLatitude();
+                double lng = container.getLongitude();
+                if (lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng)
+                    found.add(container);
+            }
+        }
+
+        private void removeUnlocked(String containerId) {
+            ContainerDto previous = byId.remove(containerId);
+            if (previous == null)
+                return;
+            long key = cellKeyOf(previous);
+            var cell = cells.get(key);
+            if (cell != null) {
+                cell.remove(containerId);
+                if (cell.isEmpty())
+                    cells.remove(key);
+            }
+        }
+
+        private static long cellKeyOf(ContainerDto container) {
+            return cellKey(cell(container.getLatitude()), cell(container.getLongitude()));
+        }
+
+        private static ContainerDto copy(ContainerDto container) {
+            return ContainerDto.builder()
+                .id(container.getId())
+                .latitude(container.getLatitude())
+                .longitude(container.getLongitude())
+                .temperature(container.getTemperature())
+                .wasteLevelValue(container.getWasteLevelValue())
+                .wasteLevelStatus(container.getWasteLevelStatus())
+                .address(container.getAddress())
+                .cityId(container.getCityId())
+                .customerId(container.getCustomerId())
+                .createdAt(container.getCreatedAt())
+                .updatedAt(container.getUpdatedAt())
+                .zoneId(container.getZoneId())
+                .predictedFullAt(container.getPredictedFullAt())
+                .build();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.scgm.containers.service;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.scgm.containers.dto.ContainerDto;
+import com.scgm.containers.dto.ContainerStatusSummaryDto;
+import com.scgm.containers.entity.ContainerEntity.WasteLevel;
+import com.scgm.containers.repository.ContainerRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+// LIGHT/MEDIUM/HEAVY counters per customer, city and zone, kept in memory.
+// Each write path applies its change in O(1) using the last known status of the container,
+// and the whole state is rebuilt from the database periodically to absorb the changes
+// made by other instances.
+@Component
+@Slf4j
+public class ContainerStatusCounters {
+
+    private static final String NO_ZONE = "";
+
+    private final ContainerRepository containerRepository;
+    // Writers share the read lock, the rebuild takes the write lock only to replay and swap
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final Set<String> touchedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading;
+    private volatile boolean loaded;
+    private volatile State state = new State();
+
+    public ContainerStatusCounters(ContainerRepository containerRepository) {
+        this.containerRepository = containerRepository;
+    }
+
+    // Empty until the first load finished, zoneId is optional
+    public Optional<ContainerStatusSummaryDto> getSummary(Long customerId, Long cityId, String zoneId) {
+        if (!loaded)
+            return Optional.empty();
+        CityCounts cityCounts = state.cities.get(new CityKey(customerId, cityId));
+        LevelCounts counts = null;
+        if (cityCounts != null)
+            counts = zoneId == null ? cityCounts.total : cityCounts.zones.get(zoneId);
+        int light = counts != null ? (int) counts.get(WasteLevel.LIGHT) : 0;
+        int medium = counts != null ? (int) counts.get(WasteLevel.MEDIUM) : 0;
+        int heavy = counts != null ? (int) counts.get(WasteLevel.HEAVY) : 0;
+        return Optional.of(ContainerStatusSummaryDto.builder()
+                .light(light)
+                .medium(medium)
+                .heavy(heavy)
+                .total(light + medium + heavy)
+                .build());
+    }
+
+    public void put(ContainerDto container) {
+        Snapshot snapshot = new Snapshot(container.getCustomerId(), container.getCityId(), container.getZoneId(),
+            container.getWasteLevelStatus());
+        apply(container.getId(), previous -> snapshot);
+    }
+
+    public void remove(String containerId) {
+        apply(containerId, previous -> null);
+    }
+
+    public void updateLevel(String containerId, WasteLevel wasteLevelStatus) {
+        apply(containerId, previous -> previous == null ? null
+            : new Snapshot(previous.customerId(), previous.cityId(), previous.zoneId(), wasteLevelStatus));
+    }
+
+    public void updateZoneId(String containerId, String zoneId) {
+        apply(containerId, previous -> previous == null ? null
+            : new Snapshot(previous.customerId(), previous.cityId(), zoneId, previous.level()));
+    }
+
+    public void clearZoneId(String zoneId) {
+        state.snapshots.forEach((containerId, snapshot) -> {
+            if (zoneId.equals(snapshot.zoneId()))
+                updateZoneId(containerId, null);
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${scgm.status-summary.reconcile-ms:60000}",
+        initialDelayString = "${scgm.status-summary.reconcile-ms:60000}")
+    public void reconcile() {
+        loading = true;
+        touchedWhileLoading.clear();
+        try {
+            State loadedState = new State();
+            containerRepository.forEachContainerStatus(container -> loadedState.apply(container.getId(),
+                previous -> new Snapshot(container.getCustomerId(), container.getCityId(), container.getZoneId(),
+                    container.getWasteLevelStatus())));
+            swapLock.writeLock().lock();
+            try {
+                // Containers changed while loading keep the value applied in memory, it is newer than the read
+                State current = state;
+                for (String containerId : touchedWhileLoading) {
+                    Snapshot snapshot = current.snapshots.get(containerId);
+                    loadedState.apply(containerId, previous -> snapshot);
+                }
+                state = loadedState;
+                loaded = true;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            log.debug("Status counters reconciled, containers: {}", loadedState.snapshots.size());
+        } catch (Exception e) {
+            log.error("Error reconciling container status counters", e);
+        } finally {
+            loading = false;
+        }
+    }
+
+    private void apply(String containerId, UnaryOperator<Snapshot> change) {
+        if (containerId == null)
+            return;
+        swapLock.readLock().lock();
+        try {
+            boolean known = state.apply(containerId, change);
+            if (loading && known)
+                touchedWhileLoading.add(containerId);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    record CityKey(Long customerId, Long cityId) {
+    }
+
+    record Snapshot(Long customerId, Long cityId, String zoneId, WasteLevel level) {
+    }
+
+    static final class State {
+
+        private final ConcurrentHashMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<CityKey, CityCounts> cities = new ConcurrentHashMap<>();
+
+        // Returns false when the container was not tracked before nor after the change
+        boolean apply(String containerId, UnaryOperator<Snapshot> change) {
+            boolean[] known = {false};
+            snapshots.compute(containerId, (id, previous) -> {
+                Snapshot next = change.apply(previous);
+                if (!Objects.equals(previous, next)) {
+                    add(previous, -1);
+                    add(next, 1);
+                }
+                known[0] = previous != null || next != null;
+                return next;
+            });
+            return known[0];
+        }
+
+        private void add(Snapshot snapshot, int delta) {
+            if (snapshot == null || snapshot.level() == null)
+                return;
+            cities.computeIfAbsent(new CityKey(snapshot.customerId(), snapshot.cityId()), key -> new CityCounts())
+                .add(snapshot.zoneId(), snapshot.level(), delta);
+        }
+    }
+
+    static final class CityCounts {
+
+        private final LevelCounts total = new LevelCounts();
+        private final ConcurrentHashMap<String, LevelCounts> zones = new ConcurrentHashMap<>();
+
+        void add(String zoneId, WasteLevel level, int delta) {
+            total.add(level, delta);
+            zones.computeIfAbsent(zoneId != null ? zoneId : NO_ZONE, key -> new LevelCounts()).add(level, delta);
+        }
+    }
+
+    static final class LevelCounts {
+
+        private final AtomicLongArray counts = new AtomicLongArray(WasteLevel.values().length);
+
+        void add(WasteLevel level, int delta) {
+            counts.addAndGet(level.ordinal(), delta);
+        }
+
+        long get(WasteLevel level) {
+            return counts.get(level.ordinal());
+        }
+    }
+}
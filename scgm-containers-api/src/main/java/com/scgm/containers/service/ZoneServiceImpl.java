@@ -16,6 +16,7 @@ import com.scgm.containers.exceptions.ZoneNotFoundException;
 import com.scgm.containers.exceptions.ZoneValidationException;
 import com.scgm.containers.exceptions.ZonesDatabaseException;
 import com.scgm.containers.repository.ZoneRepository;
+import com.scgm.containers.util.TransactionUtil;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +27,8 @@ import lombok.extern.slf4j.Slf4j;
 public class ZoneServiceImpl implements ZoneService {
 
     private final ZoneRepository zoneRepository;
+    private final ContainerSpatialIndex containerSpatialIndex;
+    private final ContainerStatusCounters containerStatusCounters;
 
     @Override
     public Optional<ZoneDto> findById(String id) {
@@ -130,6 +133,9 @@ public class ZoneServiceImpl implements ZoneService {
             throw new ZoneNotFoundException(zoneId);
         try {
             zoneRepository.deleteById(zoneId);
+            // containers.zone_id is set to null by the foreign key
+            TransactionUtil.afterCommit(() -> containerSpatialIndex.clearZoneId(zoneId));
+            TransactionUtil.afterCommit(() -> containerStatusCounters.clearZoneId(zoneId));
             log.info("Zone with ID: {} deleted successfully.", zoneId);
         } catch (Exception e) {
             log.error("Error trying to delete zone with ID: {}", zoneId, e);
@@ -0,0 +1,44 @@
+package com.scgm.containers.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import com.scgm.containers.entity.ContainerEntity;
+
+import lombok.experimental.UtilityClass;
+
+// Opaque keyset cursor over (updated_at, id): base64url of "<updatedAt ISO-8601>|<id>"
+@UtilityClass
+public class CursorUtil {
+
+    private static final char SEPARATOR = '|';
+
+    public record Cursor(Instant updatedAt, String id) {
+    }
+
+    public static String encode(Instant updatedAt, String id) {
+        String raw = updatedAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separatorIndex = raw.indexOf(SEPARATOR);
+        if (separatorIndex <= 0)
+            throw new IllegalArgumentException("Invalid cursor");
+        String id = raw.substring(separatorIndex + 1);
+        if (!ContainerEntity.UUID_PATTERN.matcher(id).matches())
+            throw new IllegalArgumentException("Invalid cursor id");
+        return new Cursor(Instant.parse(raw.substring(0, separatorIndex)), id);
+    }
+
+    public static boolean isValid(String cursor) {
+        try {
+            decode(cursor);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.scgm.containers.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class TransactionUtil {
+
+    // The in memory index and counters follow the database: a change is applied once the transaction
+    // commits and never after a rollback, or right away when there is no transaction
+    public static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,22 @@
+-- Catches the readings of a month without its partition yet, so one of them can't fail a whole batch
+CREATE TABLE IF NOT EXISTS container_readings_default PARTITION OF container_readings DEFAULT;
+
+-- A partition can't be created while the default one holds rows of its month: those rows are moved
+-- into a new table that is then attached as the partition of the month
+CREATE OR REPLACE FUNCTION create_container_readings_partition(p_month DATE) RETURNS TEXT AS $$
+DECLARE
+    v_start DATE := date_trunc('month', p_month)::DATE;
+    v_end DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::DATE;
+    v_name TEXT := 'container_readings_' || to_char(v_start, 'YYYY_MM');
+BEGIN
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN v_name;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE container_readings INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name);
+    EXECUTE format('WITH moved AS (DELETE FROM container_readings_default WHERE read_at >= %L AND read_at < %L RETURNING *)
+        INSERT INTO %I SELECT * FROM moved', v_start, v_end, v_name);
+    EXECUTE format('ALTER TABLE container_readings ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+        v_name, v_start, v_end);
+    RETURN v_name;
+END;
+$$ LANGUAGE plpgsql;
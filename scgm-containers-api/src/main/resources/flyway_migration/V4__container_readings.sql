@@ -0,0 +1,49 @@
+-- Append only history of sensor readings, range partitioned by month on read_at.
+-- The containers table keeps the latest state of each container.
+CREATE TABLE IF NOT EXISTS container_readings (
+    container_id VARCHAR(36) NOT NULL,
+    read_at TIMESTAMP NOT NULL,
+    waste_level_value DOUBLE PRECISION NOT NULL,
+    temperature DOUBLE PRECISION NOT NULL
+) PARTITION BY RANGE (read_at);
+
+CREATE INDEX IF NOT EXISTS idx_container_readings_container_id_read_at ON container_readings(container_id, read_at);
+
+-- Creates the partition that holds the month of p_month, returns the partition name
+CREATE OR REPLACE FUNCTION create_container_readings_partition(p_month DATE) RETURNS TEXT AS $$
+DECLARE
+    v_start DATE := date_trunc('month', p_month)::DATE;
+    v_end DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::DATE;
+    v_name TEXT := 'container_readings_' || to_char(v_start, 'YYYY_MM');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF container_readings FOR VALUES FROM (%L) TO (%L)',
+        v_name, v_start, v_end);
+    RETURN v_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Drops the partitions whose whole month is before p_before, returns the number of dropped partitions
+CREATE OR REPLACE FUNCTION drop_container_readings_partitions(p_before DATE) RETURNS INTEGER AS $$
+DECLARE
+    v_partition RECORD;
+    v_dropped INTEGER := 0;
+BEGIN
+    FOR v_partition IN
+        SELECT c.relname AS name
+        FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class p ON p.oid = i.inhparent
+        WHERE p.relname = 'container_readings'
+            AND c.relname ~ '^container_readings_[0-9]{4}_[0-9]{2}$'
+            AND to_date(substring(c.relname FROM '[0-9]{4}_[0-9]{2}$'), 'YYYY_MM') + INTERVAL '1 month' <= p_before
+    LOOP
+        EXECUTE format('DROP TABLE IF EXISTS %I', v_partition.name);
+        v_dropped := v_dropped + 1;
+    END LOOP;
+    RETURN v_dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_container_readings_partition(CURRENT_DATE);
+SELECT create_container_readings_partition((CURRENT_DATE + INTERVAL '1 month')::DATE);
+SELECT create_container_readings_partition((CURRENT_DATE + INTERVAL '2 month')::DATE);
@@ -0,0 +1,29 @@
+CREATE EXTENSION IF NOT EXISTS postgis;
+
+-- Geometry columns derived from the existing coordinates, the application keeps writing latitude/longitude
+ALTER TABLE containers
+ADD COLUMN IF NOT EXISTS geom geometry(Point, 4326)
+GENERATED ALWAYS AS (ST_SetSRID(ST_MakePoint(longitude, latitude), 4326)) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_containers_geom ON containers USING GIST (geom);
+
+-- Used by ST_DWithin radius searches in meters
+CREATE INDEX IF NOT EXISTS idx_containers_geog ON containers USING GIST ((geom::geography));
+
+ALTER TABLE zones
+ADD COLUMN IF NOT EXISTS geom geometry(Polygon, 4326)
+GENERATED ALWAYS AS (ST_MakeEnvelope(
+    LEAST(start_lng, end_lng), LEAST(start_lat, end_lat),
+    GREATEST(start_lng, end_lng), GREATEST(start_lat, end_lat), 4326)) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_zones_geom ON zones USING GIST (geom);
+
+-- Every container query filters by customer and city and orders by updated_at
+CREATE INDEX IF NOT EXISTS idx_containers_customer_id_city_id_updated_at
+ON containers(customer_id, city_id, updated_at DESC);
+
+CREATE INDEX IF NOT EXISTS idx_zones_customer_id_city_id_updated_at
+ON zones(customer_id, city_id, updated_at DESC);
+
+-- Covered by idx_containers_customer_id_city_id_updated_at
+DROP INDEX IF EXISTS idx_containers_customer_id;
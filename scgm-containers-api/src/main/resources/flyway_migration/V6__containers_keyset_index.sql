@@ -0,0 +1,6 @@
+-- Keyset pagination orders by (updated_at, id), the id makes the order total
+CREATE INDEX IF NOT EXISTS idx_containers_customer_id_city_id_updated_at_id
+ON containers(customer_id, city_id, updated_at DESC, id DESC);
+
+-- Covered by idx_containers_customer_id_city_id_updated_at_id
+DROP INDEX IF EXISTS idx_containers_customer_id_city_id_updated_at;
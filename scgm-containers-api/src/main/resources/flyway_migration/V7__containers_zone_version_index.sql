@@ -0,0 +1,7 @@
+-- Zone version checks read COUNT(*) and MAX(updated_at) of a zone from this index alone,
+-- a zone belongs to a single customer and city so they add no selectivity, only coverage
+CREATE INDEX IF NOT EXISTS idx_containers_zone_id_customer_id_city_id_updated_at
+ON containers(zone_id, customer_id, city_id, updated_at);
+
+-- Covered by idx_containers_zone_id_customer_id_city_id_updated_at
+DROP INDEX IF EXISTS idx_containers_zone_id;
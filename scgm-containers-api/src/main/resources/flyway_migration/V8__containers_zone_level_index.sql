@@ -0,0 +1,3 @@
+-- Route optimization reads a zone filtered by level statuses and a minimum fill value
+CREATE INDEX IF NOT EXISTS idx_containers_zone_id_waste_level_status_value
+ON containers(zone_id, waste_level_status, waste_level_value);
@@ -0,0 +1,7 @@
+-- Fill rate regression of each container, updated with every sensor reading, and the time it is
+-- expected to be full. Route planning ahead of time reads a zone by that time.
+ALTER TABLE containers ADD COLUMN IF NOT EXISTS fill_model DOUBLE PRECISION[] NULL;
+ALTER TABLE containers ADD COLUMN IF NOT EXISTS predicted_full_at TIMESTAMP NULL;
+
+CREATE INDEX IF NOT EXISTS idx_containers_zone_id_predicted_full_at
+ON containers(zone_id, predicted_full_at);
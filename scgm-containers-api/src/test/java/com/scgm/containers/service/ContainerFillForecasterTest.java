@@ -0,0 +1,73 @@
+package com.scgm.containers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ContainerFillForecasterTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final ContainerFillForecaster forecaster = new ContainerFillForecaster(80, 72, 20);
+
+    @Test
+    void update_LearnsTheFillRateOfNoisyReadings() {
+        // 2% per hour from 10%, read every 30 minutes with +-3 points of noise
+        Random random = new Random(42);
+        double[] model = null;
+        for (int reading = 0; reading <= 40; reading++) {
+            double level = 10 + reading + (random.nextDouble() * 6 - 3);
+            model = forecaster.update(model, level, START.plus(Duration.ofMinutes(30L * reading)));
+        }
+        assertEquals(2.0, model[ContainerFillForecaster.RATE], 0.2);
+
+        // 50% at the last reading after 20 hours, 15 more hours to 80%
+        Instant fullAt = forecaster.predictFullAt(model);
+        Instant expected = START.plus(Duration.ofHours(20 + 15));
+        assertTrue(Duration.between(expected, fullAt).abs().compareTo(Duration.ofHours(4)) < 0);
+        assertEquals(70.0, ContainerFillForecaster.levelAt(model, START.plus(Duration.ofHours(30))), 3.0);
+    }
+
+    @Test
+    void update_RestartsAfterAnEmptyingKeepingTheRate() {
+        double[] model = null;
+        for (int hour = 0; hour <= 30; hour++)
+            model = forecaster.update(model, 10 + 2.5 * hour, START.plus(Duration.ofHours(hour)));
+        model = forecaster.update(model, 5, START.plus(Duration.ofHours(31)));
+
+        assertEquals(5.0, model[ContainerFillForecaster.LAST_LEVEL], 1e-9);
+        assertEquals(1.0, model[ContainerFillForecaster.WEIGHT], 1e-9);
+        assertEquals(2.5, model[ContainerFillForecaster.RATE], 1e-6);
+        assertEquals(START.plus(Duration.ofHours(31 + 30)), forecaster.predictFullAt(model));
+    }
+
+    @Test
+    void predictFullAt_IsTheLastReadingWhenAlreadyFull() {
+        Instant readAt = START.plus(Duration.ofHours(5));
+        double[] model = forecaster.update(forecaster.update(null, 70, START), 85, readAt);
+        assertEquals(readAt, forecaster.predictFullAt(model));
+    }
+
+    @Test
+    void predictFullAt_IsUnknownWithoutARateOrWhenNotFilling() {
+        double[] model = forecaster.update(null, 30, START);
+        assertNull(forecaster.predictFullAt(model));
+        assertEquals(30.0, ContainerFillForecaster.levelAt(model, START.plus(Duration.ofDays(1))), 1e-9);
+
+        for (int hour = 1; hour <= 10; hour++)
+            model = forecaster.update(model, 30, START.plus(Duration.ofHours(hour)));
+        assertNull(forecaster.predictFullAt(model));
+    }
+
+    @Test
+    void update_IgnoresReadingsOlderThanTheLastOne() {
+        double[] model = forecaster.update(null, 30, START.plus(Duration.ofHours(2)));
+        assertTrue(model == forecaster.update(model, 10, START));
+    }
+}
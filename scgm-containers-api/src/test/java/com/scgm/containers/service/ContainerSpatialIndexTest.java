@@ -0,0 +1,118 @@
+package com.scgm.containers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.scgm.containers.dto.ContainerDto;
+import com.scgm.containers.entity.ContainerEntity;
+import com.scgm.containers.entity.ContainerEntity.WasteLevel;
+import com.scgm.containers.repository.ContainerRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ContainerSpatialIndexTest {
+
+    @Mock
+    private ContainerRepository containerRepository;
+
+    private ContainerSpatialIndex containerSpatialIndex;
+
+    @BeforeEach
+    void setUp() {
+        containerSpatialIndex = new ContainerSpatialIndex(containerRepository, 0);
+        when(containerRepository.findByCustomerIdAndCityId(anyLong(), anyLong(), anyInt())).thenReturn(List.of(
+            container("c1", 4.6000, -74.0800, Instant.parse("2025-01-01T10:00:00Z")),
+            container("c2", 4.6050, -74.0850, Instant.parse("2025-01-01T11:00:00Z")),
+            container("c3", 4.7000, -74.0300, Instant.parse("2025-01-01T12:00:00Z"))));
+    }
+
+    @Test
+    void findInBounds_ReturnsOnlyContainersInsideTheBounds() {
+        var result = containerSpatialIndex.findInBounds(1L, 1L, 4.59, 4.61, -74.09, -74.07, 0);
+
+        assertEquals(List.of("c2", "c1"), result.stream().map(ContainerDto::getId).toList());
+    }
+
+    @Test
+    void findInBounds_AcceptsSwappedCornersAndAppliesLimit() {
+        var result = containerSpatialIndex.findInBounds(1L, 1L, 4.8, 4.5, -74.0, -74.2, 1);
+
+        assertEquals(1, result.size());
+        assertEquals("c3", result.get(0).getId());
+    }
+
+    @Test
+    void findInBounds_LoadsTheGridOnce() {
+        containerSpatialIndex.findInBounds(1L, 1L, 4.5, 4.8, -74.2, -74.0, 0);
+        containerSpatialIndex.findInBounds(1L, 1L, 4.5, 4.8, -74.2, -74.0, 0);
+
+        verify(containerRepository, times(1)).findByCustomerIdAndCityId(1L, 1L, 0);
+    }
+
+    @Test
+    void findInBounds_ServesTheExpiredGridWhileItReloads() throws InterruptedException {
+        containerSpatialIndex = new ContainerSpatialIndex(containerRepository, 1);
+        containerSpatialIndex.findInBounds(1L, 1L, 4.5, 4.8, -74.2, -74.0, 0);
+        Thread.sleep(1100);
+
+        var result = containerSpatialIndex.findInBounds(1L, 1L, 4.5, 4.8, -74.2, -74.0, 0);
+
+        assertEquals(3, result.size());
+        verify(containerRepository, timeout(1000).times(2)).findByCustomerIdAndCityId(1L, 1L, 0);
+    }
+
+    @Test
+    void upsert_MovesContainerBetweenCells() {
+        containerSpatialIndex.findInBounds(1L, 1L, 4.5, 4.8, -74.2, -74.0, 0);
+
+        containerSpatialIndex.upsert(ContainerDto.toDto(container("c1", 4.7010, -74.0310, Instant.now())));
+
+        var oldArea = containerSpatialIndex.findInBounds(1L, 1L, 4.59, 4.61, -74.09, -74.07, 0);
+        var newArea = containerSpatialIndex.findInBounds(1L, 1L, 4.69, 4.71, -74.04, -74.02, 0);
+        assertEquals(List.of("c2"), oldArea.stream().map(ContainerDto::getId).toList());
+        assertTrue(newArea.stream().anyMatch(container -> container.getId().equals("c1")));
+    }
+
+    @Test
+    void removeAndSensorData_AreVisibleInQueries() {
+        containerSpatialIndex.findInBounds(1L, 1L, 4.5, 4.8, -74.2, -74.0, 0);
+
+        containerSpatialIndex.remove("c3");
+        containerSpatialIndex.updateSensorData("c1", 90.0, WasteLevel.HEAVY, 25.0, Instant.parse("2025-01-02T00:00:00Z"),
+            Instant.parse("2025-01-02T06:00:00Z"));
+
+        var result = containerSpatialIndex.findInBounds(1L, 1L, 4.5, 4.8, -74.2, -74.0, 0);
+        assertEquals(List.of("c1", "c2"), result.stream().map(ContainerDto::getId).toList());
+        assertEquals(WasteLevel.HEAVY, result.get(0).getWasteLevelStatus());
+        assertEquals(Instant.parse("2025-01-02T06:00:00Z"), result.get(0).getPredictedFullAt());
+    }
+
+    private static ContainerEntity container(String id, double latitude, double longitude, Instant updatedAt) {
+        return ContainerEntity.builder()
+                .id(id)
+                .latitude(latitude)
+                .longitude(longitude)
+                .wasteLevelValue(10.0)
+                .wasteLevelStatus(WasteLevel.LIGHT)
+                .temperature(20.0)
+                .address("Address " + id)
+                .cityId(1L)
+                .customerId(1L)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.scgm.routes.service;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.scgm.routes.dto.Point;
+import com.scgm.routes.dto.container.ContainerDto;
+import com.scgm.routes.solver.DistanceMatrix;
+import com.scgm.routes.solver.RoutingNodes;
+import com.scgm.routes.solver.SweepPartition;
+import com.scgm.routes.solver.TourResult;
+import com.scgm.routes.solver.TravelMatrices;
+import com.scgm.routes.util.GeoUtil;
+
+// The stages of solveVRP on their own, named as the service methods they started from: sweepSort and
+// partitionIntoRoutes are now the primitive sweep, optimizeRoute the tour improvement of one sweep route
+// (it replaced the former dijkstraOptimize) and calculateDistance one haversine per consecutive pair.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RouteSolverBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private SyntheticZone zone;
+    private ForkJoinPool pool;
+    private RouteIntegrationServiceImpl service;
+    private RouteOptimizationService routeOptimizationService;
+    private RoutingNodes nodes;
+    private String[] ids;
+    private int[] order;
+    private DistanceMatrix matrix;
+    private int[] firstRouteNodes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        zone = new SyntheticZone(size);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        service = SyntheticZone.newService(pool);
+        routeOptimizationService = new LocalSearchOptimizationServiceImpl(pool, 4);
+        nodes = service.toNodes(zone.depot, zone.containers);
+        ids = zone.containers.stream().map(ContainerDto::getId).toArray(String[]::new);
+        order = SweepPartition.sweepOrder(nodes);
+        matrix = SyntheticZone.newMatrixCache(1).forNodes(nodes, ids).distances();
+        firstRouteNodes = SweepPartition.partition(order, zone.trucks.size()).get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public int[] sweepSort() {
+        return SweepPartition.sweepOrder(nodes);
+    }
+
+    @Benchmark
+    public List<int[]> partitionIntoRoutes() {
+        return SweepPartition.partition(order, zone.trucks.size());
+    }
+
+    @Benchmark
+    public double calculateDistance() {
+        double total = 0;
+        for (int i = 1; i < order.length; i++) {
+            Point from = zone.points.get(order[i - 1] - 1);
+            Point to = zone.points.get(order[i] - 1);
+            total += GeoUtil.haversineKm(from.getLat(), from.getLng(), to.getLat(), to.getLng());
+        }
+        return total;
+    }
+
+    @Benchmark
+    public TravelMatrices distanceMatrix() {
+        return SyntheticZone.newMatrixCache(0).forNodes(nodes, ids);
+    }
+
+    @Benchmark
+    public TourResult optimizeRoute() {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SyntheticZone.TIME_LIMIT_MS);
+        return routeOptimizationService.optimize(matrix, 0, firstRouteNodes, deadlineNanos);
+    }
+}
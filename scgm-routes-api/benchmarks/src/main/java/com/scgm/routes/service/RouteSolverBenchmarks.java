@@ -0,0 +1,18 @@
+package com.scgm.routes.service;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Main class of the benchmarks jar: the JMH command line, with the gc profiler always on so the
+// allocation rate (gc.alloc.rate.norm, bytes per solve) is reported next to the time per solve
+public class RouteSolverBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
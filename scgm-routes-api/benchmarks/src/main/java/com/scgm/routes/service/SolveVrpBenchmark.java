@@ -0,0 +1,114 @@
+package com.scgm.routes.service;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.scgm.routes.dto.OptimizeRouteDto.RoutingStrategy;
+import com.scgm.routes.dto.OptimizedRouteResponse;
+
+// The whole solve of a request. With the production time limit (BOUNDED) the time per solve is mostly the
+// time budget, but a quality regression shows up as a longer route cost, reported as secondary results.
+// UNBOUNDED runs every solve to its local optimum, so the time per solve measures the construction and
+// improvement phases themselves.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SolveVrpBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    @Param({"SWEEP", "SAVINGS", "CLUSTER"})
+    public RoutingStrategy strategy;
+
+    @Param({"BOUNDED", "UNBOUNDED"})
+    public Deadline deadline;
+
+    private SyntheticZone zone;
+    private ForkJoinPool pool;
+    private RouteIntegrationServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        zone = new SyntheticZone(size);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        service = SyntheticZone.newService(pool, deadline == Deadline.BOUNDED
+            ? SyntheticZone.TIME_LIMIT_MS : SyntheticZone.UNBOUNDED_TIME_LIMIT_MS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public List<OptimizedRouteResponse.RouteResult> solveVRP(RouteCost cost) {
+        var solution = service.solveVRP(zone.depot, zone.containers, zone.trucks, strategy, null,
+            new OptimizationProgress());
+        cost.add(solution);
+        return solution.getRoutes();
+    }
+
+    // Mean route cost of the solves of each iteration, in the results and the JSON output next to the time
+    // per solve as solveVRP:routeKm, solveVRP:constructedKm and solveVRP:routesPerSolve
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RouteCost {
+
+        private double totalDistance;
+        private double initialTotalDistance;
+        private long routes;
+        private long solves;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            totalDistance = 0;
+            initialTotalDistance = 0;
+            routes = 0;
+            solves = 0;
+        }
+
+        void add(RouteIntegrationServiceImpl.VRPSolution solution) {
+            totalDistance += solution.getTotalDistance();
+            initialTotalDistance += solution.getInitialTotalDistance();
+            routes += solution.getRoutes().size();
+            solves++;
+        }
+
+        public double routeKm() {
+            return solves == 0 ? 0 : totalDistance / solves;
+        }
+
+        public double constructedKm() {
+            return solves == 0 ? 0 : initialTotalDistance / solves;
+        }
+
+        public double routesPerSolve() {
+            return solves == 0 ? 0 : (double) routes / solves;
+        }
+    }
+
+    public enum Deadline {
+        BOUNDED,
+        UNBOUNDED
+    }
+}
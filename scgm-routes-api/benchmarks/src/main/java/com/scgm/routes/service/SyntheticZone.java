@@ -0,0 +1,89 @@
+package com.scgm.routes.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import com.scgm.routes.dto.Point;
+import com.scgm.routes.dto.TruckDto;
+import com.scgm.routes.dto.container.ContainerDto;
+import com.scgm.routes.entity.WasteLevel;
+
+// Containers drawn from the distribution of V2__containers_data.sql: coordinates uniform over the
+// seeded Bogota box, fill values uniform in 0-100 and status LIGHT / MEDIUM / HEAVY by thirds.
+// A fixed seed keeps the same zone, and so comparable route costs, across runs.
+final class SyntheticZone {
+
+    static final double MIN_LAT = 4.49884383;
+    static final double MAX_LAT = 4.79548706;
+    static final double MIN_LNG = -74.20568519;
+    static final double MAX_LNG = -74.02002938;
+    static final long SEED = 42;
+    static final int TRUCKS = 10;
+    // Ten full containers per unit with the default container capacity of 0.1
+    static final double TRUCK_CAPACITY = 10;
+    static final double CONTAINER_CAPACITY = 0.1;
+    static final long TIME_LIMIT_MS = 1000;
+    // Far above any solve of the benchmark sizes, so the search stops at its local optimum instead
+    static final long UNBOUNDED_TIME_LIMIT_MS = TimeUnit.HOURS.toMillis(1);
+    static final DistanceProvider DISTANCE_PROVIDER = new HaversineDistanceProviderImpl(30);
+
+    final Point depot = new Point((MIN_LAT + MAX_LAT) / 2, (MIN_LNG + MAX_LNG) / 2);
+    final List<ContainerDto> containers;
+    final List<Point> points;
+    final List<TruckDto> trucks;
+
+    SyntheticZone(int size) {
+        Random random = new Random(SEED);
+        containers = new ArrayList<>(size);
+        points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            double fill = random.nextDouble() * 100;
+            WasteLevel status = fill < 33 ? WasteLevel.LIGHT : fill < 66 ? WasteLevel.MEDIUM : WasteLevel.HEAVY;
+            ContainerDto container = ContainerDto.builder()
+                    .id(new UUID(random.nextLong(), random.nextLong()).toString())
+                    .latitude(MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT))
+                    .longitude(MIN_LNG + random.nextDouble() * (MAX_LNG - MIN_LNG))
+                    .wasteLevelValue(fill)
+                    .wasteLevelStatus(status)
+                    .cityId(1L)
+                    .customerId(1L)
+                    .build();
+            containers.add(container);
+            points.add(Point.builder()
+                    .id(container.getId())
+                    .lat(container.getLatitude())
+                    .lng(container.getLongitude())
+                    .priority(status.ordinal() + 1)
+                    .build());
+        }
+        trucks = new ArrayList<>(TRUCKS);
+        for (int i = 0; i < TRUCKS; i++) {
+            trucks.add(TruckDto.builder()
+                    .id("truck-" + i)
+                    .name("Truck " + i)
+                    .capacity(BigDecimal.valueOf(TRUCK_CAPACITY))
+                    .available(true)
+                    .build());
+        }
+    }
+
+    // Same wiring as the application defaults, without a matrix cache so every solve builds its own
+    static RouteIntegrationServiceImpl newService(ForkJoinPool pool) {
+        return newService(pool, TIME_LIMIT_MS);
+    }
+
+    static RouteIntegrationServiceImpl newService(ForkJoinPool pool, long timeLimitMs) {
+        return new RouteIntegrationServiceImpl(null, null, new LocalSearchOptimizationServiceImpl(pool, 4), pool,
+            newMatrixCache(0), DISTANCE_PROVIDER, new RoutePlanStore(1), null, null,
+            CONTAINER_CAPACITY, timeLimitMs, 5, 200, 2);
+    }
+
+    static DistanceMatrixCache newMatrixCache(int size) {
+        return new DistanceMatrixCache(DISTANCE_PROVIDER, size);
+    }
+}
@@ -1,8 +1,11 @@
 package com.scgm.routes.client.container;
 
+import java.time.Instant;
 import java.util.List;
 
 import com.scgm.routes.dto.container.ContainerDto;
+import com.scgm.routes.dto.container.ZoneVersionDto;
+import com.scgm.routes.entity.WasteLevel;
 
 public interface ContainerClient {
 
@@ -11,4 +14,12 @@ public interface ContainerClient {
     public List<ContainerDto> findByCustomerIdAndCityIdAndZoneId(Long customerId, Long cityId, 
         String zoneId, Integer limit);
 
+    // Only id, coordinates and fill level of each container, fetched in the compact columnar form.
+    // Statuses (empty or null for all) and min fill value (null for any) are applied by the containers API.
+    // With predictedFullBy only the containers forecast to be full by then, with the forecast as fill level.
+    public List<ContainerDto> findRoutingDataByZone(Long customerId, Long cityId, String zoneId,
+        List<WasteLevel> wasteLevelStatuses, Double minWasteLevelValue, Instant predictedFullBy);
+
+    public ZoneVersionDto findZoneVersion(Long customerId, Long cityId, String zoneId);
+
 }
\ No newline at end of file
@@ -1,16 +1,23 @@
 package com.scgm.routes.client.container;
 
-import java.util.Arrays;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.scgm.routes.dto.container.ContainerColumnsDto;
 import com.scgm.routes.dto.container.ContainerDto;
+import com.scgm.routes.dto.container.ZoneVersionDto;
+import com.scgm.routes.entity.WasteLevel;
+import com.scgm.routes.exceptions.ContainersClientException;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -19,12 +26,12 @@ import lombok.extern.slf4j.Slf4j;
 public class ContainerClientImpl implements ContainerClient {
 
     private final RestTemplate restTemplate;
-    
-    @Value("${scgm.containers.api.url:http://localhost:8181}")
-    private String containersApiUrl;
+    private final String containersApiUrl;
 
-    public ContainerClientImpl() {
-        this.restTemplate = new RestTemplate();
+    public ContainerClientImpl(RestTemplate containersRestTemplate,
+        @Value("${scgm.containers.api.url:http://localhost:8181}") String containersApiUrl) {
+        this.restTemplate = containersRestTemplate;
+        this.containersApiUrl = containersApiUrl;
     }
 
     @Override
@@ -35,22 +42,9 @@ public class ContainerClientImpl implements ContainerClient {
                 .queryParam("wasteLevelStatuses", wasteLevelStatuses.toArray())
                 .buildAndExpand(cityId)
                 .toUriString();
-        try {
-            var response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                null,
-                new ParameterizedTypeReference<List<ContainerDto>>() {}
-            );
-            return response.getBody();
-        } catch (Exception e) {
-            log.error("Error calling containers API: {}", e.getMessage(), e);
-            return Arrays.asList();
-        }
+        return getList(url);
     }
 
-    // findByCustomerIdAndCityIdAndZoneId(Long customerId, Long cityId, String zoneId, Integer limit)
-
     @Override
     public List<ContainerDto> findByCustomerIdAndCityIdAndZoneId(Long customerId, Long cityId, 
         String zoneId, Integer limit) {
@@ -61,6 +55,46 @@ public class ContainerClientImpl implements ContainerClient {
                 .queryParam("limit", limit)
                 .buildAndExpand(customerId, cityId, zoneId)
                 .toUriString();
+        return getList(url);
+    }
+
+    @Override
+    public List<ContainerDto> findRoutingDataByZone(Long customerId, Long cityId, String zoneId,
+        List<WasteLevel> wasteLevelStatuses, Double minWasteLevelValue, Instant predictedFullBy) {
+        log.info("Calling containers API to find container columns for customer ID: {}, city ID: {} and zoneId:{} with waste level statuses: {}, min value: {} and predicted full by: {}",
+            customerId, cityId, zoneId, wasteLevelStatuses, minWasteLevelValue, predictedFullBy);
+        var builder = UriComponentsBuilder.fromHttpUrl(containersApiUrl)
+                .path("/api/v1/containers/by-customer/{customerId}/city/{cityId}/zone/{zoneId}/columns")
+                .queryParamIfPresent("minWasteLevelValue", Optional.ofNullable(minWasteLevelValue))
+                .queryParamIfPresent("predictedFullBy", Optional.ofNullable(predictedFullBy));
+        if (wasteLevelStatuses != null && !wasteLevelStatuses.isEmpty())
+            builder.queryParam("wasteLevelStatuses", wasteLevelStatuses.toArray());
+        String url = builder.buildAndExpand(customerId, cityId, zoneId).toUriString();
+        try {
+            var columns = restTemplate.getForObject(url, ContainerColumnsDto.class);
+            return columns == null ? new ArrayList<>() : columns.toContainers();
+        } catch (RestClientException e) {
+            log.error("Error calling containers API: {}", e.getMessage(), e);
+            throw new ContainersClientException("Error calling containers API", e);
+        }
+    }
+
+    @Override
+    public ZoneVersionDto findZoneVersion(Long customerId, Long cityId, String zoneId) {
+        String url = UriComponentsBuilder.fromHttpUrl(containersApiUrl)
+                .path("/api/v1/containers/by-customer/{customerId}/city/{cityId}/zone/{zoneId}/version")
+                .buildAndExpand(customerId, cityId, zoneId)
+                .toUriString();
+        try {
+            return restTemplate.getForObject(url, ZoneVersionDto.class);
+        } catch (RestClientException e) {
+            log.error("Error calling containers API: {}", e.getMessage(), e);
+            throw new ContainersClientException("Error calling containers API", e);
+        }
+    }
+
+    // An empty body (204) is an empty list, any failure is reported instead of hidden as no containers
+    private List<ContainerDto> getList(String url) {
         try {
             var response = restTemplate.exchange(
                 url,
@@ -68,11 +102,11 @@ public class ContainerClientImpl implements ContainerClient {
                 null,
                 new ParameterizedTypeReference<List<ContainerDto>>() {}
             );
-            return response.getBody() == null ? Arrays.asList() : response.getBody();
-        } catch (Exception e) {
+            return response.getBody() == null ? new ArrayList<>() : response.getBody();
+        } catch (RestClientException e) {
             log.error("Error calling containers API: {}", e.getMessage(), e);
-            return Arrays.asList();
+            throw new ContainersClientException("Error calling containers API", e);
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package com.scgm.routes.config;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+@Configuration
+public class HttpClientConfig {
+
+    // JDK HttpClient keeps connections alive and reuses them across requests, negotiating HTTP/2
+    // where the server supports it and falling back to HTTP/1.1 otherwise
+    @Bean
+    public RestTemplate containersRestTemplate(
+        @Value("${scgm.containers.api.connect-timeout-ms:2000}") long connectTimeoutMs,
+        @Value("${scgm.containers.api.read-timeout-ms:10000}") long readTimeoutMs) {
+        HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return new RestTemplate(requestFactory);
+    }
+
+}
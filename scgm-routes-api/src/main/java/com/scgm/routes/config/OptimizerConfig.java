@@ -0,0 +1,19 @@
+package com.scgm.routes.config;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OptimizerConfig {
+
+    // Route improvement is CPU bound, the pool is bounded to the cores (or the configured parallelism)
+    // and shared by all requests. Work stealing lets a route task wait on its own multi-start subtasks.
+    @Bean(destroyMethod = "shutdownNow")
+    public ForkJoinPool routeOptimizationPool(@Value("${scgm.routes.optimizer.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+}
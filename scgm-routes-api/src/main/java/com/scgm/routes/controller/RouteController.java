@@ -1,9 +1,11 @@
 package com.scgm.routes.controller;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -13,9 +15,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import com.scgm.routes.entity.RouteAssignmentEntity.AssignmentStatus;
+import com.scgm.routes.dto.OptimizationJobDto;
 import com.scgm.routes.dto.OptimizeRouteDto;
 import com.scgm.routes.dto.OptimizedRouteResponse;
 import com.scgm.routes.dto.RouteAssignmentDto;
+import com.scgm.routes.dto.RouteRepairDto;
+import com.scgm.routes.service.OptimizationJobService;
 import com.scgm.routes.service.RouteIntegrationService;
 
 import lombok.AllArgsConstructor;
@@ -28,6 +33,7 @@ import lombok.extern.slf4j.Slf4j;
 public class RouteController {
 
     private final RouteIntegrationService routeIntegrationService;
+    private final OptimizationJobService optimizationJobService;
 
     @PostMapping("/optimize/by-customer/{customerId}")
     public ResponseEntity<OptimizedRouteResponse> optimizeRoute(@PathVariable Long customerId, @RequestBody OptimizeRouteDto data) {
@@ -36,6 +42,40 @@ public class RouteController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    @PostMapping("/optimize/by-customer/{customerId}/plans/{planId}/repair")
+    public ResponseEntity<OptimizedRouteResponse> repairRoute(@PathVariable Long customerId, @PathVariable String planId,
+        @RequestBody(required = false) RouteRepairDto data) {
+        log.info("Repairing route plan: {} for customerId: {}", planId, customerId);
+        var response = routeIntegrationService.repairRoute(customerId, planId, data == null ? new RouteRepairDto() : data);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @PostMapping("/optimize/by-customer/{customerId}/jobs")
+    public ResponseEntity<OptimizationJobDto> submitOptimizationJob(@PathVariable Long customerId, @RequestBody OptimizeRouteDto data) {
+        log.info("Submitting optimization job for customerId: {} city: {}", customerId, data.getCityId());
+        var job = optimizationJobService.submit(customerId, data);
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/optimize/by-customer/{customerId}/jobs/{jobId}")
+    public ResponseEntity<OptimizationJobDto> getOptimizationJob(@PathVariable Long customerId, @PathVariable String jobId) {
+        var job = optimizationJobService.getStatus(customerId, jobId);
+        return new ResponseEntity<>(job, HttpStatus.OK);
+    }
+
+    @DeleteMapping("/optimize/by-customer/{customerId}/jobs/{jobId}")
+    public ResponseEntity<OptimizationJobDto> cancelOptimizationJob(@PathVariable Long customerId, @PathVariable String jobId) {
+        log.info("Cancelling optimization job: {} for customerId: {}", jobId, customerId);
+        var job = optimizationJobService.cancel(customerId, jobId);
+        return new ResponseEntity<>(job, HttpStatus.OK);
+    }
+
+    @GetMapping("/optimize/by-customer/{customerId}/jobs/{jobId}/result")
+    public ResponseEntity<OptimizedRouteResponse> getOptimizationJobResult(@PathVariable Long customerId, @PathVariable String jobId) {
+        var response = optimizationJobService.getResult(customerId, jobId);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     @PostMapping("/assign")
     public ResponseEntity<RouteAssignmentDto> assignRoute(@RequestBody RouteAssignmentDto data) {
         log.info("Assigning route: {}", data.getRouteName());
@@ -43,6 +83,7 @@ public class RouteController {
         return new ResponseEntity<>(assignment, HttpStatus.CREATED);
     }
 
+    // Active assignments of the operator without the route data, meant to be polled
     @GetMapping("/assignments")
     public ResponseEntity<List<RouteAssignmentDto>> getAssignments(@RequestParam(required = false) String operatorId) {
         log.info("Getting assignments for operator: {}", operatorId);
@@ -52,6 +93,27 @@ public class RouteController {
         return new ResponseEntity<>(assignments, HttpStatus.OK);
     }
 
+    @GetMapping("/assignments/{id}")
+    public ResponseEntity<RouteAssignmentDto> getAssignment(@PathVariable String id) {
+        var assignment = routeIntegrationService.getAssignment(id);
+        return new ResponseEntity<>(assignment, HttpStatus.OK);
+    }
+
+    // Assignments of a city ordered by scheduled date, without the route data
+    @GetMapping("/assignments/by-customer/{customerId}/city/{cityId}")
+    public ResponseEntity<List<RouteAssignmentDto>> getAssignmentsByCustomerAndCity(@PathVariable Long customerId,
+        @PathVariable Long cityId,
+        @RequestParam(required = false) LocalDate scheduledFrom,
+        @RequestParam(required = false) LocalDate scheduledTo,
+        @RequestParam(required = false) Integer limit) {
+        log.info("Getting assignments for customerId: {} city: {}", customerId, cityId);
+        List<RouteAssignmentDto> assignments = routeIntegrationService.getAssignments(customerId, cityId, scheduledFrom,
+            scheduledTo, limit);
+        if (assignments.isEmpty())
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        return new ResponseEntity<>(assignments, HttpStatus.OK);
+    }
+
     @PutMapping("/assignments/{id}/status")
     public ResponseEntity<RouteAssignmentDto> updateAssignmentStatus(@PathVariable String id, 
         @RequestBody AssignmentStatusRequest request) {
@@ -6,6 +6,9 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import com.scgm.routes.dto.DefaultResponseDto;
+import com.scgm.routes.exceptions.ContainersClientException;
+import com.scgm.routes.exceptions.OptimizationJobNotFoundException;
+import com.scgm.routes.exceptions.RouteAssignmentNotFoundException;
 import com.scgm.routes.exceptions.RouteLogicException;
 import com.scgm.routes.exceptions.RouteNotFoundException;
 import com.scgm.routes.exceptions.RoutesDatabaseException;
@@ -24,6 +27,20 @@ public class RouteControllerAdvisor {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 
+    @ExceptionHandler(OptimizationJobNotFoundException.class)
+    public ResponseEntity<DefaultResponseDto> handleOptimizationJobNotFoundException(OptimizationJobNotFoundException ex) {
+        log.info("Optimization job not found: {}", ex.getMessage());
+        var response = new DefaultResponseDto(ex.getMessage(), HttpStatus.NOT_FOUND.value());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
+    @ExceptionHandler(RouteAssignmentNotFoundException.class)
+    public ResponseEntity<DefaultResponseDto> handleRouteAssignmentNotFoundException(RouteAssignmentNotFoundException ex) {
+        log.info("Route assignment not found: {}", ex.getMessage());
+        var response = new DefaultResponseDto(ex.getMessage(), HttpStatus.NOT_FOUND.value());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
     @ExceptionHandler(RouteValidationException.class)
     public ResponseEntity<DefaultResponseDto> handleRouteValidationException(RouteValidationException ex) {
         log.info("Route validation error: {}, error list: {}", ex.getMessage(), ex.getErrors());
@@ -38,6 +55,13 @@ public class RouteControllerAdvisor {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    @ExceptionHandler(ContainersClientException.class)
+    public ResponseEntity<DefaultResponseDto> handleContainersClientException(ContainersClientException ex) {
+        log.error("Containers API error: {}", ex.getMessage(), ex);
+        var response = new DefaultResponseDto("Containers service unavailable", HttpStatus.BAD_GATEWAY.value());
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(response);
+    }
+
     @ExceptionHandler(RoutesDatabaseException.class)
     public ResponseEntity<DefaultResponseDto> handleRoutesDatabaseException(RoutesDatabaseException ex) {
         log.error("Database error: {}", ex.getMessage(), ex);
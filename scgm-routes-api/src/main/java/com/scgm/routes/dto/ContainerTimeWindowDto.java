@@ -0,0 +1,21 @@
+package com.scgm.routes.dto;
+
+import java.time.LocalTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Hours at which a container can be emptied, with its own service time; an open end is the whole shift
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContainerTimeWindowDto {
+
+    private String containerId;
+    private LocalTime start;
+    private LocalTime end;
+    private Double serviceMinutes;
+}
@@ -0,0 +1,42 @@
+package com.scgm.routes.dto;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OptimizationJobDto {
+    private String id;
+    private Long customerId;
+    private Long cityId;
+    private String zoneId;
+    private JobStatus status;
+    // Cost of the best solution found so far, null until the routes are built
+    private Double bestDistance;
+    private int routesTotal;
+    private int routesOptimized;
+    // Route assignment where the result was saved
+    private String assignmentId;
+    private String error;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.scgm.routes.dto;
 
+import java.time.Instant;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -23,7 +25,34 @@ public class OptimizeRouteDto {
     private String zoneId;
     private Double startLat;
     private Double startLng;
+    // Only containers with these levels (all when empty) and at least this fill value (0-100) are collected
     private List<WasteLevel> wasteTypes;
+    private Double minFillValue;
+    // Plans for a future time: only containers predicted to be full by then are collected, still filtered
+    // by the levels above, and their forecast fill level at that time is the load of the trucks
+    private Instant plannedFor;
+    // SWEEP when not set
+    private RoutingStrategy strategy;
+    // Optimization jobs only, the result is saved as an assignment of this supervisor
+    private String supervisorId;
+    private String routeName;
+    // Time constraints, all optional. With any of them each truck gets one route within its shift (the
+    // request shift unless it has one of its own), containers are only emptied inside their windows and
+    // the strategy is not used. Service minutes are the default time spent at each container.
+    private LocalTime shiftStart;
+    private LocalTime shiftEnd;
+    private Double serviceMinutes;
+    private List<TruckShiftDto> truckShifts;
+    private List<ContainerTimeWindowDto> containerTimeWindows;
+
+    public enum RoutingStrategy {
+        // Angular sweep around the depot split evenly between the trucks
+        SWEEP,
+        // Clarke-Wright savings bounded by the truck capacity and the container fill levels
+        SAVINGS,
+        // Capacity bounded k-means clusters, each one routed on its own
+        CLUSTER
+    }
 
     public List<String> validate() {
         List<String> listErrors = new ArrayList<>();
@@ -42,7 +71,48 @@ public class OptimizeRouteDto {
             listErrors.add("startLng: is required");
         else if (startLng < -180.0 || startLng > 180.0)
             listErrors.add("startLng: must be between -180 and 180");
+        if (minFillValue != null && (minFillValue < 0.0 || minFillValue > 100.0))
+            listErrors.add("minFillValue: must be between 0 and 100");
+        if (shiftStart != null && shiftEnd != null && !shiftStart.isBefore(shiftEnd))
+            listErrors.add("shiftEnd: must be after shiftStart");
+        if (serviceMinutes != null && serviceMinutes < 0.0)
+            listErrors.add("serviceMinutes: must not be negative");
+        if (truckShifts != null) {
+            for (TruckShiftDto shift : truckShifts) {
+                if (shift == null || shift.getTruckId() == null || shift.getTruckId().trim().isEmpty()) {
+                    listErrors.add("truckShifts: truckId is required");
+                    break;
+                }
+                if (shift.getStart() != null && shift.getEnd() != null && !shift.getStart().isBefore(shift.getEnd())) {
+                    listErrors.add("truckShifts: end must be after start for truck " + shift.getTruckId());
+                    break;
+                }
+            }
+        }
+        if (containerTimeWindows != null) {
+            for (ContainerTimeWindowDto window : containerTimeWindows) {
+                if (window == null || window.getContainerId() == null
+                    || !UUID_PATTERN.matcher(window.getContainerId()).matches()) {
+                    listErrors.add("containerTimeWindows: invalid UUID format");
+                    break;
+                }
+                if (window.getStart() != null && window.getEnd() != null && window.getEnd().isBefore(window.getStart())) {
+                    listErrors.add("containerTimeWindows: end must not be before start for container " + window.getContainerId());
+                    break;
+                }
+                if (window.getServiceMinutes() != null && window.getServiceMinutes() < 0.0) {
+                    listErrors.add("containerTimeWindows: serviceMinutes must not be negative for container " + window.getContainerId());
+                    break;
+                }
+            }
+        }
         return listErrors;
     }
 
+    public boolean hasTimeConstraints() {
+        return shiftStart != null || shiftEnd != null || serviceMinutes != null
+            || (truckShifts != null && !truckShifts.isEmpty())
+            || (containerTimeWindows != null && !containerTimeWindows.isEmpty());
+    }
+
 }
\ No newline at end of file
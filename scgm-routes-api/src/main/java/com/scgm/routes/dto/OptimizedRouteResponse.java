@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.time.LocalTime;
 import java.util.List;
 
 @Data
@@ -11,11 +12,17 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 public class OptimizedRouteResponse {
+    // Id of the stored plan, used to repair it later
+    private String planId;
     private List<RouteResult> routes;
     private double totalDistance;
+    // Distance of the nearest neighbour routes before the improvement
+    private double initialTotalDistance;
     private int containerCount;
     private int estimatedTime;
     private int trucksUsed;
+    // Containers no truck reaches inside their window and its shift, only with time constraints
+    private List<String> unassignedContainerIds;
     
     @Data
     @NoArgsConstructor
@@ -25,5 +32,16 @@ public class OptimizedRouteResponse {
         private String truckId;
         private String truckName;
         private List<Point> points;
+        private double distance;
+        private double initialDistance;
+        // Driving minutes of the route with the configured distance provider; with time constraints, the minutes
+        // from leaving the depot to being back, service and waits included
+        private Integer estimatedTime;
+        // Trip number of the truck, collected load and truck capacity, only set by the savings strategy
+        private Integer trip;
+        private Double load;
+        private Double capacity;
+        // Start of the service at each point, leaving the depot first and back at it last, only with time constraints
+        private List<LocalTime> scheduledTimes;
     }
 }
\ No newline at end of file
@@ -1,9 +1,13 @@
 package com.scgm.routes.dto;
 
+import java.time.Instant;
+import java.time.LocalDate;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import com.scgm.routes.entity.RouteAssignmentEntity;
 import com.scgm.routes.entity.RouteAssignmentEntity.AssignmentStatus;
 
 @Data
@@ -11,12 +15,38 @@ import com.scgm.routes.entity.RouteAssignmentEntity.AssignmentStatus;
 @AllArgsConstructor
 @Builder
 public class RouteAssignmentDto {
+    // Set to assign an existing assignment, such as the result of an optimization job, empty to create one
     private String id;
     private String routeName;
+    // Only when one assignment is read, lists leave it out
     private OptimizedRouteResponse routeData;
     private String truckId;
     private String operatorId;
     private String supervisorId;
     private String city;
+    private Long customerId;
+    private Long cityId;
+    private LocalDate scheduledDate;
+    private String notes;
     private AssignmentStatus status;
-}
\ No newline at end of file
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    public static RouteAssignmentDto toDto(RouteAssignmentEntity entity, OptimizedRouteResponse routeData) {
+        return RouteAssignmentDto.builder()
+                .id(entity.getId())
+                .routeName(entity.getRouteName())
+                .routeData(routeData)
+                .truckId(entity.getTruckId())
+                .operatorId(entity.getOperatorId())
+                .supervisorId(entity.getSupervisorId())
+                .customerId(entity.getCustomerId())
+                .cityId(entity.getCityId())
+                .scheduledDate(entity.getScheduledDate())
+                .notes(entity.getNotes())
+                .status(entity.getStatus())
+                .createdAt(entity.getCreatedAt())
+                .updatedAt(entity.getUpdatedAt())
+                .build();
+    }
+}
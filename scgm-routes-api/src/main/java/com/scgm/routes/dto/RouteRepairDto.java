@@ -0,0 +1,44 @@
+package com.scgm.routes.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Changes to apply to an optimized plan. Without any id the plan is synchronized with the zone:
+// HEAVY containers not yet planned are inserted and the emptied ones removed.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RouteRepairDto {
+
+    private List<String> insertContainerIds;
+    private List<String> removeContainerIds;
+
+    public boolean isEmpty() {
+        return (insertContainerIds == null || insertContainerIds.isEmpty())
+            && (removeContainerIds == null || removeContainerIds.isEmpty());
+    }
+
+    public List<String> validate() {
+        List<String> listErrors = new ArrayList<>();
+        validateIds("insertContainerIds", insertContainerIds, listErrors);
+        validateIds("removeContainerIds", removeContainerIds, listErrors);
+        return listErrors;
+    }
+
+    private static void validateIds(String field, List<String> ids, List<String> listErrors) {
+        if (ids == null)
+            return;
+        for (String id : ids) {
+            if (id == null || !OptimizeRouteDto.UUID_PATTERN.matcher(id).matches()) {
+                listErrors.add(field + ": invalid UUID format");
+                return;
+            }
+        }
+    }
+}
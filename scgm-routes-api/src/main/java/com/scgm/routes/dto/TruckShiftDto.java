@@ -0,0 +1,20 @@
+package com.scgm.routes.dto;
+
+import java.time.LocalTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Shift of one truck, from leaving the depot to being back at it; an open end is the shift of the request
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TruckShiftDto {
+
+    private String truckId;
+    private LocalTime start;
+    private LocalTime end;
+}
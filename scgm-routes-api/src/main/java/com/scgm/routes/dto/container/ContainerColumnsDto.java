@@ -0,0 +1,43 @@
+package com.scgm.routes.dto.container;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.scgm.routes.entity.WasteLevel;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Columnar containers as returned by the containers API, position i of every column is the same container
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContainerColumnsDto {
+
+    private List<String> ids;
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] wasteLevelValues;
+    private List<WasteLevel> wasteLevelStatuses;
+    // Only when asked for containers predicted full by a time, the level expected at that time
+    private double[] forecastWasteLevelValues;
+
+    public List<ContainerDto> toContainers() {
+        if (ids == null)
+            return new ArrayList<>();
+        List<ContainerDto> containers = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            containers.add(ContainerDto.builder()
+                .id(ids.get(i))
+                .latitude(latitudes[i])
+                .longitude(longitudes[i])
+                .wasteLevelValue(forecastWasteLevelValues != null ? forecastWasteLevelValues[i] : wasteLevelValues[i])
+                .wasteLevelStatus(wasteLevelStatuses.get(i))
+                .build());
+        }
+        return containers;
+    }
+}
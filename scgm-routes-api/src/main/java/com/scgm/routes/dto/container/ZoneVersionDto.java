@@ -0,0 +1,19 @@
+package com.scgm.routes.dto.container;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ZoneVersionDto {
+
+    private long count;
+    private Instant maxUpdatedAt;
+
+}
@@ -7,6 +7,8 @@ import java.util.List;
 import java.util.regex.Pattern;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -22,6 +24,14 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+// The operator index ends with every field of the operator poll, so the poll reads the index and no document.
+// Supervisors list the assignments of a city by scheduled date with the second one.
+@CompoundIndexes({
+    @CompoundIndex(name = "operator_status_scheduled_date",
+                   def = "{'operator_id': 1, 'status': 1, 'scheduled_date': 1, '_id': 1, 'route_name': 1, 'truck_id': 1, 'updated_at': 1}"),
+    @CompoundIndex(name = "customer_city_scheduled_date",
+                   def = "{'customer_id': 1, 'city_id': 1, 'scheduled_date': 1}")
+})
 public class RouteAssignmentEntity {
 
     public static final Pattern INJECTION_PATTERN = Pattern.compile(
@@ -76,7 +86,18 @@ public class RouteAssignmentEntity {
         PENDING, //Operator set, but not init
         IN_PROGRESS, // Operator ejecutando la ruta
         COMPLETED,
-        CANCELLED
+        CANCELLED;
+
+        // Statuses an assignment can change to this one from
+        public List<AssignmentStatus> previous() {
+            return switch (this) {
+                case UNASSIGNED -> List.of();
+                case PENDING -> List.of(UNASSIGNED, PENDING);
+                case IN_PROGRESS -> List.of(PENDING);
+                case COMPLETED -> List.of(IN_PROGRESS);
+                case CANCELLED -> List.of(UNASSIGNED, PENDING, IN_PROGRESS);
+            };
+        }
     }
 
     public List<String> validate() {
@@ -90,17 +111,16 @@ public class RouteAssignmentEntity {
             listErrors.add("routeName: invalid format");
         }
 
-        if (StringUtils.isEmpty(getRouteData())) {
+        // JSON of the optimized route, written by the service and not by the client
+        if (StringUtils.isEmpty(getRouteData()))
             listErrors.add("routeData: is required");
-        } else if (!INJECTION_PATTERN.matcher(getRouteData()).matches()) {
-            listErrors.add("routeData: invalid format");
-        }
 
         if (!StringUtils.isEmpty(getTruckId()) && !INJECTION_PATTERN.matcher(getTruckId()).matches()) {
             listErrors.add("truckId: invalid format");
         }
         if (StringUtils.isEmpty(getOperatorId())) {
-            listErrors.add("operatorId: is required");
+            if (getStatus() != AssignmentStatus.UNASSIGNED)
+                listErrors.add("operatorId: is required");
         } else if (!INJECTION_PATTERN.matcher(getOperatorId()).matches()) {
             listErrors.add("operatorId: invalid format");
         }
@@ -0,0 +1,9 @@
+package com.scgm.routes.exceptions;
+
+public class ContainersClientException extends RuntimeException {
+
+    public ContainersClientException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
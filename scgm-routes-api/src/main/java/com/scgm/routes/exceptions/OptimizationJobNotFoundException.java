@@ -0,0 +1,9 @@
+package com.scgm.routes.exceptions;
+
+public class OptimizationJobNotFoundException extends RuntimeException {
+
+    public OptimizationJobNotFoundException(String jobId) {
+        super("Optimization job not found with ID: " + jobId);
+    }
+
+}
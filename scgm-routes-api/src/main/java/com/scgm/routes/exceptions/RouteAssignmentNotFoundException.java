@@ -0,0 +1,9 @@
+package com.scgm.routes.exceptions;
+
+public class RouteAssignmentNotFoundException extends RuntimeException {
+
+    public RouteAssignmentNotFoundException(String assignmentId) {
+        super("Route assignment not found with ID: " + assignmentId);
+    }
+
+}
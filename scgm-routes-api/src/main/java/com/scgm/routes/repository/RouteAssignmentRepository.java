@@ -3,13 +3,15 @@ package com.scgm.routes.repository;
 import java.util.List;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.scgm.routes.entity.RouteAssignmentEntity;
 import com.scgm.routes.entity.RouteAssignmentEntity.AssignmentStatus;
 
 @Repository
-public interface RouteAssignmentRepository extends MongoRepository<RouteAssignmentEntity, String> {
+public interface RouteAssignmentRepository extends MongoRepository<RouteAssignmentEntity, String>,
+    RouteAssignmentRepositoryCustom {
 
     List<RouteAssignmentEntity> findByTruckId(String truckId);
     
@@ -23,4 +25,10 @@ public interface RouteAssignmentRepository extends MongoRepository<RouteAssignme
     
     List<RouteAssignmentEntity> findByOperatorIdAndStatus(String operatorId, AssignmentStatus status);
 
+    // Operator poll, covered by the operator_status_scheduled_date index: only indexed fields are returned
+    @Query(value = "{ 'operator_id': ?0, 'status': { $in: ?1 } }",
+           fields = "{ '_id': 1, 'operator_id': 1, 'status': 1, 'scheduled_date': 1, 'route_name': 1, 'truck_id': 1, 'updated_at': 1 }",
+           sort = "{ 'scheduled_date': 1 }")
+    List<RouteAssignmentEntity> findSummariesByOperatorIdAndStatusIn(String operatorId, List<AssignmentStatus> statuses);
+
 }
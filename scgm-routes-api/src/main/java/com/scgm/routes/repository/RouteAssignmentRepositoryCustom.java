@@ -0,0 +1,27 @@
+package com.scgm.routes.repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import com.scgm.routes.entity.RouteAssignmentEntity;
+import com.scgm.routes.entity.RouteAssignmentEntity.AssignmentStatus;
+
+// Every method leaves out route_data, only the assignment itself is read
+public interface RouteAssignmentRepositoryCustom {
+
+    // Atomic, only when the current status is one of status.previous(). PENDING also needs an operator.
+    // Empty when the assignment does not exist or cannot change to the status.
+    Optional<RouteAssignmentEntity> updateStatus(String id, AssignmentStatus status, Instant updatedAt);
+
+    // Sets the operator, truck and date and moves it to PENDING, atomic like updateStatus. Null truckId,
+    // scheduledDate and notes keep the current values.
+    Optional<RouteAssignmentEntity> assign(String id, String operatorId, String truckId, LocalDate scheduledDate,
+        String notes, Instant updatedAt);
+
+    // Ordered by scheduled date, both dates are optional and inclusive
+    List<RouteAssignmentEntity> findSummaries(Long customerId, Long cityId, LocalDate scheduledFrom,
+        LocalDate scheduledTo, int limit);
+
+}
@@ -0,0 +1,79 @@
+package com.scgm.routes.repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import com.scgm.routes.entity.RouteAssignmentEntity;
+import com.scgm.routes.entity.RouteAssignmentEntity.AssignmentStatus;
+
+@Repository
+public class RouteAssignmentRepositoryImpl implements RouteAssignmentRepositoryCustom {
+
+    private static final String ROUTE_DATA = "route_data";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<RouteAssignmentEntity> updateStatus(String id, AssignmentStatus status, Instant updatedAt) {
+        Criteria criteria = Criteria.where("_id").is(id).and("status").in(status.previous());
+        if (status == AssignmentStatus.PENDING)
+            criteria.and("operator_id").ne(null);
+        Update update = new Update().set("status", status).set("updated_at", updatedAt);
+        return findAndModify(criteria, update);
+    }
+
+    @Override
+    public Optional<RouteAssignmentEntity> assign(String id, String operatorId, String truckId, LocalDate scheduledDate,
+        String notes, Instant updatedAt) {
+        Criteria criteria = Criteria.where("_id").is(id).and("status").in(AssignmentStatus.PENDING.previous());
+        Update update = new Update()
+            .set("operator_id", operatorId)
+            .set("status", AssignmentStatus.PENDING)
+            .set("updated_at", updatedAt);
+        if (truckId != null)
+            update.set("truck_id", truckId);
+        if (scheduledDate != null)
+            update.set("scheduled_date", scheduledDate);
+        if (notes != null)
+            update.set("notes", notes);
+        return findAndModify(criteria, update);
+    }
+
+    @Override
+    public List<RouteAssignmentEntity> findSummaries(Long customerId, Long cityId, LocalDate scheduledFrom,
+        LocalDate scheduledTo, int limit) {
+        Criteria criteria = Criteria.where("customer_id").is(customerId).and("city_id").is(cityId);
+        if (scheduledFrom != null || scheduledTo != null) {
+            Criteria scheduled = criteria.and("scheduled_date");
+            if (scheduledFrom != null)
+                scheduled.gte(scheduledFrom);
+            if (scheduledTo != null)
+                scheduled.lte(scheduledTo);
+        }
+        Query query = new Query(criteria)
+            .with(Sort.by("scheduled_date"))
+            .limit(limit);
+        query.fields().exclude(ROUTE_DATA);
+        return mongoTemplate.find(query, RouteAssignmentEntity.class);
+    }
+
+    // Returns the assignment as it is after the update
+    private Optional<RouteAssignmentEntity> findAndModify(Criteria criteria, Update update) {
+        Query query = new Query(criteria);
+        query.fields().exclude(ROUTE_DATA);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+            FindAndModifyOptions.options().returnNew(true), RouteAssignmentEntity.class));
+    }
+}
@@ -0,0 +1,89 @@
+package com.scgm.routes.service;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.scgm.routes.client.container.ContainerClient;
+import com.scgm.routes.dto.container.ContainerDto;
+import com.scgm.routes.dto.container.ZoneVersionDto;
+import com.scgm.routes.entity.WasteLevel;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Read-through cache of the containers of recently optimized zones, least recently used evicted first.
+// A snapshot is served without any call for revalidate-ms, then only while the zone version (count and
+// last update) is unchanged, and fetched again in full once it is older than the ttl.
+// Each filter of a zone is a snapshot of its own, all revalidated with the version of the whole zone. A
+// forecast changes with every reading, which also changes the version, so it is cached the same way.
+@Component
+@Slf4j
+public class ContainerSnapshotCache {
+
+    private final ContainerClient containerClient;
+    private final long revalidateMillis;
+    private final long ttlMillis;
+    private final Map<ZoneKey, Snapshot> snapshots;
+
+    public ContainerSnapshotCache(ContainerClient containerClient,
+        @Value("${scgm.routes.container-cache.size:100}") int size,
+        @Value("${scgm.routes.container-cache.revalidate-ms:2000}") long revalidateMillis,
+        @Value("${scgm.routes.container-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.containerClient = containerClient;
+        this.revalidateMillis = revalidateMillis;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.snapshots = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ZoneKey, Snapshot> eldest) {
+                return size() > size;
+            }
+        });
+    }
+
+    // The returned containers are shared with the cache and must not be modified
+    public List<ContainerDto> findRoutingDataByZone(Long customerId, Long cityId, String zoneId,
+        List<WasteLevel> wasteLevelStatuses, Double minWasteLevelValue, Instant predictedFullBy) {
+        Set<WasteLevel> statuses = wasteLevelStatuses == null || wasteLevelStatuses.isEmpty()
+            ? EnumSet.noneOf(WasteLevel.class) : EnumSet.copyOf(wasteLevelStatuses);
+        ZoneKey key = new ZoneKey(customerId, cityId, zoneId, statuses, minWasteLevelValue, predictedFullBy);
+        long now = System.currentTimeMillis();
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot != null && now - snapshot.loadedAt() <= ttlMillis) {
+            if (now - snapshot.checkedAt() <= revalidateMillis)
+                return snapshot.containers();
+            ZoneVersionDto version = containerClient.findZoneVersion(customerId, cityId, zoneId);
+            if (Objects.equals(version, snapshot.version())) {
+                snapshots.put(key, new Snapshot(snapshot.version(), snapshot.containers(), snapshot.loadedAt(), now));
+                return snapshot.containers();
+            }
+            return load(key, version, now);
+        }
+        return load(key, containerClient.findZoneVersion(customerId, cityId, zoneId), now);
+    }
+
+    // The version is read before the containers, a change in between only causes one extra reload
+    private List<ContainerDto> load(ZoneKey key, ZoneVersionDto version, long now) {
+        List<ContainerDto> containers = List.copyOf(
+            containerClient.findRoutingDataByZone(key.customerId(), key.cityId(), key.zoneId(),
+                List.copyOf(key.wasteLevelStatuses()), key.minWasteLevelValue(), key.predictedFullBy()));
+        snapshots.put(key, new Snapshot(version, containers, now, now));
+        log.debug("Container snapshot loaded for zone ID: {}, containers: {}", key.zoneId(), containers.size());
+        return containers;
+    }
+
+    // An empty set of statuses means all of them
+    record ZoneKey(Long customerId, Long cityId, String zoneId, Set<WasteLevel> wasteLevelStatuses,
+        Double minWasteLevelValue, Instant predictedFullBy) {
+    }
+
+    record Snapshot(ZoneVersionDto version, List<ContainerDto> containers, long loadedAt, long checkedAt) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.scgm.routes.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.scgm.routes.solver.RoutingNodes;
+import com.scgm.routes.solver.TravelMatrices;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Distance matrices of the recently optimized container sets, least recently used evicted first.
+// A matrix is keyed by the depot and the sorted container ids and built in that order, so the same
+// zone requested with the containers in another order is still a hit. Moved containers miss.
+@Component
+@Slf4j
+public class DistanceMatrixCache {
+
+    private final DistanceProvider distanceProvider;
+    private final Map<Key, CachedMatrix> matrices;
+
+    public DistanceMatrixCache(DistanceProvider distanceProvider,
+        @Value("${scgm.routes.distance-matrix.cache-size:32}") int cacheSize) {
+        this.distanceProvider = distanceProvider;
+        this.matrices = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedMatrix> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    // Same nodes as the given ones: node 0 is the depot and node i + 1 the stop with ids[i]
+    public TravelMatrices forNodes(RoutingNodes nodes, String[] ids) {
+        int[] byId = IntStream.range(0, ids.length)
+                .boxed()
+                .sorted(Comparator.comparing(i -> ids[i], Comparator.nullsFirst(Comparator.naturalOrder())))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        double[] lats = new double[nodes.size()];
+        double[] lngs = new double[nodes.size()];
+        String[] sortedIds = new String[ids.length];
+        lats[0] = nodes.lat()[0];
+        lngs[0] = nodes.lng()[0];
+        int[] indexes = new int[nodes.size()];
+        for (int k = 0; k < byId.length; k++) {
+            lats[k + 1] = nodes.lat()[byId[k] + 1];
+            lngs[k + 1] = nodes.lng()[byId[k] + 1];
+            sortedIds[k] = ids[byId[k]];
+            indexes[byId[k] + 1] = k + 1;
+        }
+
+        Key key = new Key(lats[0], lngs[0], Arrays.asList(sortedIds));
+        CachedMatrix cached = matrices.get(key);
+        if (cached == null || !cached.hasCoordinates(lats, lngs)) {
+            cached = new CachedMatrix(lats, lngs, distanceProvider.matrices(lats, lngs));
+            matrices.put(key, cached);
+            log.debug("Distance matrix built for {} points", lats.length);
+        }
+        return cached.matrices().indexed(indexes);
+    }
+
+    record Key(double depotLat, double depotLng, List<String> containerIds) {
+    }
+
+    record CachedMatrix(double[] lats, double[] lngs, TravelMatrices matrices) {
+
+        boolean hasCoordinates(double[] otherLats, double[] otherLngs) {
+            return Arrays.equals(lats, otherLats) && Arrays.equals(lngs, otherLngs);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.scgm.routes.service;
+
+import com.scgm.routes.solver.TravelMatrices;
+
+public interface DistanceProvider {
+
+    // Symmetric km and minutes between every pair of the given coordinates, node i is (lats[i], lngs[i])
+    public TravelMatrices matrices(double[] lats, double[] lngs);
+
+}
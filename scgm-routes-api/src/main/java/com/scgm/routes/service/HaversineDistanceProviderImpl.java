@@ -0,0 +1,28 @@
+package com.scgm.routes.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.scgm.routes.solver.ScaledDistanceMatrix;
+import com.scgm.routes.solver.TravelMatrices;
+import com.scgm.routes.solver.TriangularDistanceMatrix;
+
+// Straight line distances, with travel times at a constant average speed
+@Service
+@ConditionalOnProperty(name = "scgm.routes.distance.provider", havingValue = "haversine", matchIfMissing = true)
+public class HaversineDistanceProviderImpl implements DistanceProvider {
+
+    private final double averageSpeedKmh;
+
+    public HaversineDistanceProviderImpl(@Value("${scgm.routes.distance.average-speed-kmh:30}") double averageSpeedKmh) {
+        this.averageSpeedKmh = averageSpeedKmh;
+    }
+
+    @Override
+    public TravelMatrices matrices(double[] lats, double[] lngs) {
+        TriangularDistanceMatrix distances = TriangularDistanceMatrix.haversine(lats, lngs);
+        return new TravelMatrices(distances, new ScaledDistanceMatrix(distances, 60 / averageSpeedKmh));
+    }
+
+}
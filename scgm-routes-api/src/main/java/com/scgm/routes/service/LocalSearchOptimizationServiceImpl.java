@@ -0,0 +1,61 @@
+package com.scgm.routes.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.scgm.routes.solver.DistanceMatrix;
+import com.scgm.routes.solver.LocalSearch;
+import com.scgm.routes.solver.TourResult;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Nearest neighbour seed improved with 2-opt and Or-opt until a local optimum or the deadline.
+// With several starts the extra ones are randomized seeds run in parallel, the shortest tour wins.
+@Service
+@ConditionalOnProperty(name = "scgm.routes.optimizer.strategy", havingValue = "local-search", matchIfMissing = true)
+@Slf4j
+public class LocalSearchOptimizationServiceImpl implements RouteOptimizationService {
+
+    // Below this size every start ends in practically the same tour
+    private static final int MIN_NODES_MULTI_START = 6;
+
+    private final ForkJoinPool routeOptimizationPool;
+    private final int starts;
+
+    public LocalSearchOptimizationServiceImpl(ForkJoinPool routeOptimizationPool,
+        @Value("${scgm.routes.optimizer.starts:4}") int starts) {
+        this.routeOptimizationPool = routeOptimizationPool;
+        this.starts = Math.max(1, starts);
+    }
+
+    @Override
+    public TourResult optimize(DistanceMatrix distanceMatrix, int depot, int[] nodes, long deadlineNanos) {
+        if (starts == 1 || nodes.length < MIN_NODES_MULTI_START)
+            return LocalSearch.solve(distanceMatrix, depot, nodes, deadlineNanos);
+
+        List<ForkJoinTask<TourResult>> tasks = new ArrayList<>(starts - 1);
+        for (int start = 1; start < starts; start++) {
+            Random random = new Random(start);
+            tasks.add(routeOptimizationPool.submit(() -> LocalSearch.solve(distanceMatrix, depot, nodes, deadlineNanos, random)));
+        }
+        // The plain nearest neighbour start runs on the calling thread and gives the reported initial distance
+        TourResult seeded = LocalSearch.solve(distanceMatrix, depot, nodes, deadlineNanos);
+        TourResult best = seeded;
+        for (ForkJoinTask<TourResult> task : tasks) {
+            TourResult result = task.join();
+            if (result.distance() < best.distance())
+                best = result;
+        }
+        log.debug("Route of {} nodes optimized with {} starts, initial distance: {}, distance: {}", nodes.length,
+            starts, seeded.initialDistance(), best.distance());
+        return new TourResult(best.order(), seeded.initialDistance(), best.distance());
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.scgm.routes.service;
+
+import java.util.Arrays;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.scgm.routes.solver.DistanceMatrix;
+import com.scgm.routes.solver.LocalSearch;
+import com.scgm.routes.solver.TourResult;
+
+@Service
+@ConditionalOnProperty(name = "scgm.routes.optimizer.strategy", havingValue = "nearest-neighbour")
+public class NearestNeighbourOptimizationServiceImpl implements RouteOptimizationService {
+
+    @Override
+    public TourResult optimize(DistanceMatrix distanceMatrix, int depot, int[] nodes, long deadlineNanos) {
+        int[] tour = LocalSearch.nearestNeighbour(distanceMatrix, depot, nodes);
+        double distance = LocalSearch.tourLength(distanceMatrix, tour);
+        return new TourResult(Arrays.copyOfRange(tour, 1, tour.length - 1), distance, distance);
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.scgm.routes.service;
+
+import com.scgm.routes.dto.OptimizationJobDto;
+import com.scgm.routes.dto.OptimizeRouteDto;
+import com.scgm.routes.dto.OptimizedRouteResponse;
+
+public interface OptimizationJobService {
+
+    OptimizationJobDto submit(Long customerId, OptimizeRouteDto data);
+
+    OptimizationJobDto getStatus(Long customerId, String jobId);
+
+    OptimizationJobDto cancel(Long customerId, String jobId);
+
+    OptimizedRouteResponse getResult(Long customerId, String jobId);
+
+}
@@ -0,0 +1,256 @@
+package com.scgm.routes.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scgm.routes.dto.OptimizationJobDto;
+import com.scgm.routes.dto.OptimizationJobDto.JobStatus;
+import com.scgm.routes.dto.OptimizeRouteDto;
+import com.scgm.routes.dto.OptimizedRouteResponse;
+import com.scgm.routes.entity.RouteAssignmentEntity;
+import com.scgm.routes.entity.RouteAssignmentEntity.AssignmentStatus;
+import com.scgm.routes.exceptions.OptimizationJobNotFoundException;
+import com.scgm.routes.exceptions.RouteLogicException;
+import com.scgm.routes.exceptions.RouteValidationException;
+import com.scgm.routes.exceptions.RoutesDatabaseException;
+import com.scgm.routes.repository.RouteAssignmentRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Runs optimizations outside the request threads. Jobs live in memory on the instance that accepted
+// them until some time after they finish; completed results are also saved as unassigned route assignments.
+@Service
+@Slf4j
+public class OptimizationJobServiceImpl implements OptimizationJobService {
+
+    private final RouteIntegrationService routeIntegrationService;
+    private final RouteAssignmentRepository routeAssignmentRepository;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor jobExecutor;
+    private final long retentionMillis;
+    private final Map<String, OptimizationJob> jobs = new ConcurrentHashMap<>();
+
+    public OptimizationJobServiceImpl(RouteIntegrationService routeIntegrationService,
+        RouteAssignmentRepository routeAssignmentRepository, ObjectMapper objectMapper,
+        @Value("${scgm.routes.jobs.max-running:4}") int maxRunning,
+        @Value("${scgm.routes.jobs.max-queued:100}") int maxQueued,
+        @Value("${scgm.routes.jobs.retention-minutes:60}") long retentionMinutes) {
+        this.routeIntegrationService = routeIntegrationService;
+        this.routeAssignmentRepository = routeAssignmentRepository;
+        this.objectMapper = objectMapper;
+        this.jobExecutor = new ThreadPoolExecutor(maxRunning, maxRunning, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, maxQueued)));
+        this.retentionMillis = TimeUnit.MINUTES.toMillis(retentionMinutes);
+    }
+
+    @Override
+    public OptimizationJobDto submit(Long customerId, OptimizeRouteDto data) {
+        List<String> listErrors = data.validate();
+        if (StringUtils.isEmpty(data.getSupervisorId()))
+            listErrors.add("supervisorId: is required");
+        else if (!RouteAssignmentEntity.INJECTION_PATTERN.matcher(data.getSupervisorId()).matches())
+            listErrors.add("supervisorId: invalid format");
+        if (!StringUtils.isEmpty(data.getRouteName()) && !RouteAssignmentEntity.INJECTION_PATTERN.matcher(data.getRouteName()).matches())
+            listErrors.add("routeName: invalid format");
+        if (!listErrors.isEmpty())
+            throw new RouteValidationException("Trying to submit: error optimization request validation.", listErrors);
+
+        OptimizationJob job = new OptimizationJob(UUID.randomUUID().toString(), customerId, data);
+        jobs.put(job.id, job);
+        try {
+            jobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new RouteLogicException("Too many optimization jobs in progress, try again later");
+        }
+        log.info("Optimization job {} submitted for customerId: {} city: {} zone: {}", job.id, customerId,
+            data.getCityId(), data.getZoneId());
+        return job.toDto();
+    }
+
+    @Override
+    public OptimizationJobDto getStatus(Long customerId, String jobId) {
+        return findJob(customerId, jobId).toDto();
+    }
+
+    @Override
+    public OptimizationJobDto cancel(Long customerId, String jobId) {
+        OptimizationJob job = findJob(customerId, jobId);
+        job.cancel();
+        log.info("Optimization job {} cancelled", jobId);
+        return job.toDto();
+    }
+
+    @Override
+    public OptimizedRouteResponse getResult(Long customerId, String jobId) {
+        OptimizationJob job = findJob(customerId, jobId);
+        synchronized (job) {
+            if (job.status != JobStatus.COMPLETED)
+                throw new RouteLogicException("Optimization job is not completed, status: " + job.status);
+            return job.result;
+        }
+    }
+
+    // Results stay available in the route assignments after the job is forgotten
+    @Scheduled(fixedDelayString = "${scgm.routes.jobs.cleanup-ms:60000}")
+    public void removeExpiredJobs() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.isExpired(now, retentionMillis));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(OptimizationJob::cancel);
+        jobExecutor.shutdownNow();
+    }
+
+    private OptimizationJob findJob(Long customerId, String jobId) {
+        OptimizationJob job = jobs.get(jobId);
+        if (job == null || !Objects.equals(job.customerId, customerId))
+            throw new OptimizationJobNotFoundException(jobId);
+        return job;
+    }
+
+    private void run(OptimizationJob job) {
+        if (!job.start())
+            return;
+        try {
+            OptimizedRouteResponse response = routeIntegrationService.optimizeRoute(job.customerId, job.data, job.progress);
+            job.progress.checkCancelled();
+            String assignmentId = null;
+            String error = null;
+            try {
+                assignmentId = saveResult(job, response);
+            } catch (Exception e) {
+                log.error("Error trying to save the result of optimization job {}", job.id, e);
+                error = "The result could not be saved";
+            }
+            job.complete(response, assignmentId, error);
+            log.info("Optimization job {} completed, distance: {}, assignment: {}", job.id, response.getTotalDistance(),
+                assignmentId);
+        } catch (CancellationException e) {
+            job.finish(JobStatus.CANCELLED, null);
+        } catch (Exception e) {
+            if (job.progress.isCancelled()) {
+                job.finish(JobStatus.CANCELLED, null);
+            } else {
+                log.warn("Optimization job {} failed: {}", job.id, e.getMessage());
+                job.finish(JobStatus.FAILED, e.getMessage());
+            }
+        }
+    }
+
+    private String saveResult(OptimizationJob job, OptimizedRouteResponse response) throws Exception {
+        Instant now = Instant.now();
+        var entity = RouteAssignmentEntity.builder()
+            .id(UUID.randomUUID().toString())
+            .routeName(StringUtils.isEmpty(job.data.getRouteName())
+                ? "Optimized route " + LocalDate.now() : job.data.getRouteName())
+            .routeData(objectMapper.writeValueAsString(response))
+            .cityId(job.data.getCityId())
+            .customerId(job.customerId)
+            .supervisorId(job.data.getSupervisorId())
+            .status(AssignmentStatus.UNASSIGNED)
+            .createdAt(now)
+            .updatedAt(now)
+            .build();
+        var listErrors = entity.validate();
+        if (!listErrors.isEmpty())
+            throw new RouteValidationException("Trying to save: error route assignment entity validation.", listErrors);
+        try {
+            return routeAssignmentRepository.save(entity).getId();
+        } catch (Exception e) {
+            throw new RoutesDatabaseException("Error trying to save optimized route", e);
+        }
+    }
+
+    private static final class OptimizationJob {
+
+        private final String id;
+        private final Long customerId;
+        private final OptimizeRouteDto data;
+        private final OptimizationProgress progress = new OptimizationProgress();
+        private final Instant submittedAt = Instant.now();
+        private JobStatus status = JobStatus.QUEUED;
+        private Instant startedAt;
+        private Instant finishedAt;
+        private OptimizedRouteResponse result;
+        private String assignmentId;
+        private String error;
+
+        OptimizationJob(String id, Long customerId, OptimizeRouteDto data) {
+            this.id = id;
+            this.customerId = customerId;
+            this.data = data;
+        }
+
+        synchronized boolean start() {
+            if (status != JobStatus.QUEUED)
+                return false;
+            status = JobStatus.RUNNING;
+            startedAt = Instant.now();
+            return true;
+        }
+
+        synchronized void complete(OptimizedRouteResponse result, String assignmentId, String error) {
+            if (status.isFinished())
+                return;
+            this.result = result;
+            this.assignmentId = assignmentId;
+            finish(JobStatus.COMPLETED, error);
+        }
+
+        synchronized void finish(JobStatus finalStatus, String error) {
+            if (status.isFinished())
+                return;
+            this.status = finalStatus;
+            this.error = error;
+            this.finishedAt = Instant.now();
+        }
+
+        // Queued jobs never start, running ones stop their pending route tasks
+        void cancel() {
+            progress.cancel();
+            finish(JobStatus.CANCELLED, null);
+        }
+
+        synchronized boolean isExpired(long now, long retentionMillis) {
+            return status.isFinished() && now - finishedAt.toEpochMilli() > retentionMillis;
+        }
+
+        synchronized OptimizationJobDto toDto() {
+            return OptimizationJobDto.builder()
+                .id(id)
+                .customerId(customerId)
+                .cityId(data.getCityId())
+                .zoneId(data.getZoneId())
+                .status(status)
+                .bestDistance(status == JobStatus.COMPLETED ? result.getTotalDistance() : progress.getBestDistance())
+                .routesTotal(progress.getRoutesTotal())
+                .routesOptimized(progress.getRoutesOptimized())
+                .assignmentId(assignmentId)
+                .error(error)
+                .submittedAt(submittedAt)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.scgm.routes.service;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+// Progress of one optimization, written by the solver threads and read by the job status endpoint.
+// The best distance is the cost of the current solution: optimized routes count with their improved
+// distance and the others with their distance as constructed.
+public class OptimizationProgress {
+
+    private final List<Future<?>> tasks = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+    private double[] routeDistances = new double[0];
+    private int routesOptimized;
+
+    public synchronized void routesBuilt(double[] constructedDistances) {
+        this.routeDistances = constructedDistances.clone();
+        this.routesOptimized = 0;
+    }
+
+    public synchronized void routeOptimized(int route, double distance) {
+        routeDistances[route] = distance;
+        routesOptimized++;
+    }
+
+    public synchronized Double getBestDistance() {
+        if (routeDistances.length == 0)
+            return null;
+        double total = 0;
+        for (double distance : routeDistances)
+            total += distance;
+        return total;
+    }
+
+    public synchronized int getRoutesTotal() {
+        return routeDistances.length;
+    }
+
+    public synchronized int getRoutesOptimized() {
+        return routesOptimized;
+    }
+
+    // Solver tasks of the optimization, cancelled together with it
+    public void track(Future<?> task) {
+        tasks.add(task);
+        if (cancelled)
+            task.cancel(true);
+    }
+
+    public void cancel() {
+        cancelled = true;
+        tasks.forEach(task -> task.cancel(true));
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void checkCancelled() {
+        if (cancelled)
+            throw new CancellationException("Optimization cancelled");
+    }
+}
@@ -0,0 +1,119 @@
+package com.scgm.routes.service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.scgm.routes.solver.OsmGraphReader;
+import com.scgm.routes.solver.RoadGraph;
+import com.scgm.routes.solver.TravelMatrices;
+import com.scgm.routes.solver.TriangularDistanceMatrix;
+import com.scgm.routes.util.GeoUtil;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Street distances and travel times over a road graph loaded once from a local OSM extract, no network needed.
+// Each point is snapped to its nearest graph node and every row is a one-to-many Dijkstra on travel time,
+// rows run in parallel on the optimizer pool. One-way streets make the graph asymmetric, while 2-opt and
+// Or-opt reverse segments assuming a symmetric matrix, so both directions of a pair are averaged.
+@Service
+@ConditionalOnProperty(name = "scgm.routes.distance.provider", havingValue = "road-graph")
+@Slf4j
+public class RoadGraphDistanceProviderImpl implements DistanceProvider {
+
+    // Stretch of the straight line between points that are not connected in the graph
+    private static final double UNCONNECTED_DETOUR = 1.4;
+
+    private final RoadGraph graph;
+    private final ForkJoinPool routeOptimizationPool;
+    // Speed of the legs between the points and their graph nodes and of unconnected pairs
+    private final double averageSpeedKmh;
+    private final ThreadLocal<RoadGraph.Search> searches;
+
+    public RoadGraphDistanceProviderImpl(ForkJoinPool routeOptimizationPool,
+        @Value("${scgm.routes.distance.osm-file}") String osmFile,
+        @Value("${scgm.routes.distance.average-speed-kmh:30}") double averageSpeedKmh) {
+        this.routeOptimizationPool = routeOptimizationPool;
+        this.averageSpeedKmh = averageSpeedKmh;
+        this.graph = load(Path.of(osmFile));
+        this.searches = ThreadLocal.withInitial(graph::newSearch);
+    }
+
+    @Override
+    public TravelMatrices matrices(double[] lats, double[] lngs) {
+        int size = lats.length;
+        int[] graphNodes = new int[size];
+        double[] snapKm = new double[size];
+        for (int i = 0; i < size; i++) {
+            graphNodes[i] = graph.nearestNode(lats[i], lngs[i]);
+            snapKm[i] = graphNodes[i] < 0 ? 0
+                : GeoUtil.haversineKm(lats[i], lngs[i], graph.lat(graphNodes[i]), graph.lng(graphNodes[i]));
+        }
+
+        TriangularDistanceMatrix forwardKm = TriangularDistanceMatrix.empty(size);
+        TriangularDistanceMatrix backwardKm = TriangularDistanceMatrix.empty(size);
+        TriangularDistanceMatrix forwardMinutes = TriangularDistanceMatrix.empty(size);
+        TriangularDistanceMatrix backwardMinutes = TriangularDistanceMatrix.empty(size);
+        AtomicInteger unconnected = new AtomicInteger();
+        List<ForkJoinTask<?>> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int from = i;
+            rows.add(routeOptimizationPool.submit(() -> {
+                double[] km = new double[size];
+                double[] minutes = new double[size];
+                if (graphNodes[from] >= 0)
+                    searches.get().oneToMany(graphNodes[from], graphNodes, km, minutes);
+                for (int to = 0; to < size; to++) {
+                    if (to == from)
+                        continue;
+                    if (graphNodes[from] < 0 || graphNodes[to] < 0 || Double.isNaN(km[to])) {
+                        km[to] = GeoUtil.haversineKm(lats[from], lngs[from], lats[to], lngs[to]) * UNCONNECTED_DETOUR;
+                        minutes[to] = km[to] / averageSpeedKmh * 60;
+                        unconnected.incrementAndGet();
+                    } else {
+                        double snap = snapKm[from] + snapKm[to];
+                        km[to] += snap;
+                        minutes[to] += snap / averageSpeedKmh * 60;
+                    }
+                    // The pair (min, max) of each direction is only written by the row of its origin
+                    (from < to ? forwardKm : backwardKm).set(from, to, km[to]);
+                    (from < to ? forwardMinutes : backwardMinutes).set(from, to, minutes[to]);
+                }
+            }));
+        }
+        rows.forEach(ForkJoinTask::join);
+        if (unconnected.get() > 0)
+            log.warn("{} of {} pairs not connected in the road graph, straight line distance used", unconnected.get(),
+                (long) size * (size - 1));
+        return new TravelMatrices(TriangularDistanceMatrix.average(forwardKm, backwardKm),
+            TriangularDistanceMatrix.average(forwardMinutes, backwardMinutes));
+    }
+
+    private static RoadGraph load(Path osmFile) {
+        long start = System.nanoTime();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(osmFile), 1 << 16);
+            InputStream in = osmFile.toString().endsWith(".gz") ? new GZIPInputStream(file, 1 << 16) : file) {
+            RoadGraph graph = OsmGraphReader.read(in);
+            log.info("Road graph loaded from {}: {} nodes, {} edges in {} ms", osmFile, graph.nodeCount(),
+                graph.edgeCount(), (System.nanoTime() - start) / 1_000_000);
+            return graph;
+        } catch (IOException | XMLStreamException e) {
+            throw new IllegalStateException("Unable to read the OSM extract: " + osmFile, e);
+        }
+    }
+
+}
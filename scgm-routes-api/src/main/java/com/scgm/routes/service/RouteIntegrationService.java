@@ -3,16 +3,27 @@ package com.scgm.routes.service;
 import com.scgm.routes.dto.OptimizeRouteDto;
 import com.scgm.routes.dto.OptimizedRouteResponse;
 import com.scgm.routes.dto.RouteAssignmentDto;
+import com.scgm.routes.dto.RouteRepairDto;
 import com.scgm.routes.entity.RouteAssignmentEntity.AssignmentStatus;
+import java.time.LocalDate;
 import java.util.List;
 
 public interface RouteIntegrationService {
     
     OptimizedRouteResponse optimizeRoute(Long customerId, OptimizeRouteDto data);
+
+    OptimizedRouteResponse optimizeRoute(Long customerId, OptimizeRouteDto data, OptimizationProgress progress);
+
+    OptimizedRouteResponse repairRoute(Long customerId, String planId, RouteRepairDto data);
     
     RouteAssignmentDto assignRoute(RouteAssignmentDto data);
     
     List<RouteAssignmentDto> getAssignments(String operatorId);
+
+    RouteAssignmentDto getAssignment(String id);
+
+    List<RouteAssignmentDto> getAssignments(Long customerId, Long cityId, LocalDate scheduledFrom, LocalDate scheduledTo,
+        Integer limit);
     
     RouteAssignmentDto updateAssignmentStatus(String id, AssignmentStatus status);
 }
@@ -1,30 +1,109 @@
 package com.scgm.routes.service;
 
-import com.scgm.routes.client.container.ContainerClient;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.scgm.routes.dto.*;
 import com.scgm.routes.dto.container.ContainerDto;
+import com.scgm.routes.entity.RouteAssignmentEntity;
 import com.scgm.routes.entity.WasteLevel;
+import com.scgm.routes.exceptions.RouteAssignmentNotFoundException;
 import com.scgm.routes.exceptions.RouteLogicException;
-import lombok.AllArgsConstructor;
+import com.scgm.routes.exceptions.RouteNotFoundException;
+import com.scgm.routes.exceptions.RouteValidationException;
+import com.scgm.routes.exceptions.RoutesDatabaseException;
+import com.scgm.routes.repository.RouteAssignmentRepository;
+import com.scgm.routes.service.RoutePlanStore.PlanWindows;
+import com.scgm.routes.service.RoutePlanStore.RoutePlan;
+import com.scgm.routes.dto.OptimizeRouteDto.RoutingStrategy;
+import com.scgm.routes.solver.CapacitatedKMeans;
+import com.scgm.routes.solver.DistanceMatrix;
+import com.scgm.routes.solver.InterRouteSearch;
+import com.scgm.routes.solver.LocalSearch;
+import com.scgm.routes.solver.RoutingNodes;
+import com.scgm.routes.solver.SavingsSolver;
+import com.scgm.routes.solver.SweepPartition;
+import com.scgm.routes.solver.TimeWindowSearch;
+import com.scgm.routes.solver.TimeWindows;
+import com.scgm.routes.solver.TourResult;
+import com.scgm.routes.solver.TravelMatrices;
+import com.scgm.routes.solver.TripAssignment;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import com.scgm.routes.entity.RouteAssignmentEntity.AssignmentStatus;
 
 @Service
-@AllArgsConstructor
 @Slf4j
 public class RouteIntegrationServiceImpl implements RouteIntegrationService {
 
-    //The value 0 means that there is no limit to the number of containers in the list.
-    private static final Integer LIMIT_CONTAINERS_REQ = 0;
+    private static final double MINUTES_PER_DAY = 24 * 60;
 
-    private final ContainerClient containerClient;
+    private final ContainerSnapshotCache containerSnapshotCache;
     private final TruckService truckService;
+    private final RouteOptimizationService routeOptimizationService;
+    private final ForkJoinPool routeOptimizationPool;
+    private final DistanceMatrixCache distanceMatrixCache;
+    private final DistanceProvider distanceProvider;
+    private final RoutePlanStore routePlanStore;
+    private final RouteAssignmentRepository routeAssignmentRepository;
+    private final ObjectMapper objectMapper;
+    // Load of a full container, in the same unit as the truck capacity
+    private final double containerCapacity;
+    // Time budget of a whole optimization request, shared by all of its routes
+    private final long timeLimitMs;
+    // Fill level at or below which a planned container counts as emptied when synchronizing a plan
+    private final double emptiedLevel;
+    private final long repairTimeLimitMs;
+    // Minutes spent at a container when the request sets no service time
+    private final double serviceMinutes;
+
+    public RouteIntegrationServiceImpl(ContainerSnapshotCache containerSnapshotCache, TruckService truckService,
+        RouteOptimizationService routeOptimizationService, ForkJoinPool routeOptimizationPool,
+        DistanceMatrixCache distanceMatrixCache, DistanceProvider distanceProvider, RoutePlanStore routePlanStore,
+        RouteAssignmentRepository routeAssignmentRepository, ObjectMapper objectMapper,
+        @Value("${scgm.routes.cvrp.container-capacity:0.1}") double containerCapacity,
+        @Value("${scgm.routes.optimizer.time-limit-ms:1000}") long timeLimitMs,
+        @Value("${scgm.routes.plans.emptied-level:5}") double emptiedLevel,
+        @Value("${scgm.routes.plans.repair-time-limit-ms:200}") long repairTimeLimitMs,
+        @Value("${scgm.routes.schedule.service-minutes:2}") double serviceMinutes) {
+        this.containerSnapshotCache = containerSnapshotCache;
+        this.truckService = truckService;
+        this.routeOptimizationService = routeOptimizationService;
+        this.routeOptimizationPool = routeOptimizationPool;
+        this.distanceMatrixCache = distanceMatrixCache;
+        this.distanceProvider = distanceProvider;
+        this.routePlanStore = routePlanStore;
+        this.routeAssignmentRepository = routeAssignmentRepository;
+        this.objectMapper = objectMapper;
+        this.containerCapacity = containerCapacity;
+        this.timeLimitMs = timeLimitMs;
+        this.emptiedLevel = emptiedLevel;
+        this.repairTimeLimitMs = repairTimeLimitMs;
+        this.serviceMinutes = serviceMinutes;
+    }
 
     @Override
     public OptimizedRouteResponse optimizeRoute(Long customerId, OptimizeRouteDto data) {
+        var listErrors = data.validate();
+        if (!listErrors.isEmpty())
+            throw new RouteValidationException("Trying to optimize: error route request validation.", listErrors);
+        return optimizeRoute(customerId, data, new OptimizationProgress());
+    }
+
+    @Override
+    public OptimizedRouteResponse optimizeRoute(Long customerId, OptimizeRouteDto data, OptimizationProgress progress) {
         log.info("Optimizing route for customerId:{}  city: {}", customerId, data.getCityId());
         List<ContainerDto> containers = getFilteredContainers(customerId, data);
         if (containers.isEmpty()) {
@@ -32,49 +111,247 @@ public class RouteIntegrationServiceImpl implements RouteIntegrationService {
         }
         Point depot = new Point(data.getStartLat(), data.getStartLng());
         List<TruckDto> trucks = getAvailableTrucks(customerId, data.getCityId());
-        VRPSolution vrpSolution = solveVRP(depot, containers, trucks);
-        return OptimizedRouteResponse.builder()
+        if (trucks.isEmpty()) {
+            throw new RouteLogicException("No available trucks found for given criteria");
+        }
+        RoutingStrategy strategy = data.getStrategy() == null ? RoutingStrategy.SWEEP : data.getStrategy();
+        TimeWindows windows = data.hasTimeConstraints() ? toTimeWindows(data, containers, trucks) : null;
+        progress.checkCancelled();
+        VRPSolution vrpSolution = solveVRP(depot, containers, trucks, strategy, windows, progress);
+        OptimizedRouteResponse response = OptimizedRouteResponse.builder()
+                .planId(UUID.randomUUID().toString())
                 .routes(vrpSolution.getRoutes())
                 .totalDistance(vrpSolution.getTotalDistance())
+                .initialTotalDistance(vrpSolution.getInitialTotalDistance())
                 .containerCount(containers.size())
                 .estimatedTime(vrpSolution.getEstimatedTime())
                 .trucksUsed(vrpSolution.getTrucksUsed())
+                .unassignedContainerIds(vrpSolution.getUnassignedContainerIds())
                 .build();
+        PlanWindows planWindows = windows == null ? null : new PlanWindows(windows,
+                containers.stream().map(ContainerDto::getId).collect(Collectors.toList()),
+                trucks,
+                data.getServiceMinutes() == null ? serviceMinutes : data.getServiceMinutes());
+        routePlanStore.save(new RoutePlan(response.getPlanId(), customerId, data.getCityId(), data.getZoneId(), depot,
+                response, planWindows));
+        return response;
+    }
+
+    @Override
+    public OptimizedRouteResponse repairRoute(Long customerId, String planId, RouteRepairDto data) {
+        var listErrors = data.validate();
+        if (!listErrors.isEmpty())
+            throw new RouteValidationException("Trying to repair: error route repair request validation.", listErrors);
+        RoutePlan plan = routePlanStore.find(planId)
+                .filter(p -> Objects.equals(p.customerId(), customerId))
+                .orElseThrow(() -> new RouteNotFoundException(planId));
+        Map<String, ContainerDto> zoneContainers = containerSnapshotCache
+                .findRoutingDataByZone(customerId, plan.cityId(), plan.zoneId(), null, null, null)
+                .stream()
+                .collect(Collectors.toMap(ContainerDto::getId, c -> c, (a, b) -> a));
+        Set<String> planned = plan.response().getRoutes().stream()
+                .flatMap(route -> route.getPoints().stream())
+                .map(Point::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Set<String> toRemove = new HashSet<>();
+        List<ContainerDto> toInsert = new ArrayList<>();
+        if (data.isEmpty()) {
+            for (String id : planned) {
+                ContainerDto container = zoneContainers.get(id);
+                if (container == null || (container.getWasteLevelValue() != null && container.getWasteLevelValue() <= emptiedLevel))
+                    toRemove.add(id);
+            }
+            zoneContainers.values().stream()
+                    .filter(c -> c.getWasteLevelStatus() == WasteLevel.HEAVY && !planned.contains(c.getId()))
+                    .forEach(toInsert::add);
+        } else {
+            if (data.getRemoveContainerIds() != null)
+                toRemove.addAll(data.getRemoveContainerIds());
+            if (data.getInsertContainerIds() != null) {
+                for (String id : data.getInsertContainerIds()) {
+                    ContainerDto container = zoneContainers.get(id);
+                    if (container == null)
+                        throw new RouteValidationException("insertContainerIds: container not found in the zone: " + id);
+                    if (!planned.contains(id) && !toRemove.contains(id))
+                        toInsert.add(container);
+                }
+            }
+        }
+        log.info("Repairing plan {}: inserting {} and removing {} containers", planId, toInsert.size(), toRemove.size());
+        return routePlanStore.update(planId, current -> repairPlan(current, toInsert, toRemove, zoneContainers))
+                .orElseThrow(() -> new RouteNotFoundException(planId))
+                .response();
     }
 
     @Override
     public RouteAssignmentDto assignRoute(RouteAssignmentDto data) {
-        log.info("Assigning route: {}", data.getRouteName());
-        data.setStatus(AssignmentStatus.PENDING);
-        // TODO: Implement database persistence
-        return data;
+        log.info("Assigning route: {} to operator: {}", data.getRouteName(), data.getOperatorId());
+        Instant now = Instant.now();
+        if (StringUtils.isEmpty(data.getId()))
+            return createAssignment(data, now);
+
+        List<String> listErrors = new ArrayList<>();
+        if (StringUtils.isEmpty(data.getOperatorId()))
+            listErrors.add("operatorId: is required");
+        else if (!RouteAssignmentEntity.INJECTION_PATTERN.matcher(data.getOperatorId()).matches())
+            listErrors.add("operatorId: invalid format");
+        if (!StringUtils.isEmpty(data.getTruckId()) && !RouteAssignmentEntity.INJECTION_PATTERN.matcher(data.getTruckId()).matches())
+            listErrors.add("truckId: invalid format");
+        if (!StringUtils.isEmpty(data.getNotes()) && !RouteAssignmentEntity.INJECTION_PATTERN.matcher(data.getNotes()).matches())
+            listErrors.add("notes: invalid format");
+        if (!listErrors.isEmpty())
+            throw new RouteValidationException("Trying to assign: error route assignment request validation.", listErrors);
+        Optional<RouteAssignmentEntity> assigned;
+        try {
+            assigned = routeAssignmentRepository.assign(data.getId(), data.getOperatorId(),
+                StringUtils.trimToNull(data.getTruckId()), data.getScheduledDate(), StringUtils.trimToNull(data.getNotes()), now);
+        } catch (Exception e) {
+            log.error("Error trying to assign route assignment with ID: {}", data.getId(), e);
+            throw new RoutesDatabaseException("Error trying to assign route", e);
+        }
+        return RouteAssignmentDto.toDto(assigned.orElseThrow(() -> transitionError(data.getId(), AssignmentStatus.PENDING)), null);
     }
 
+    // Index only lookup of the active assignments of the operator, without the route data
     @Override
     public List<RouteAssignmentDto> getAssignments(String operatorId) {
         log.info("Getting assignments for operator: {}", operatorId);
-        // TODO: Implement database query
-        return new ArrayList<>();
+        if (StringUtils.isEmpty(operatorId))
+            throw new RouteValidationException("Trying to get assignments: error request validation.",
+                List.of("operatorId: is required"));
+        try {
+            return routeAssignmentRepository
+                .findSummariesByOperatorIdAndStatusIn(operatorId, List.of(AssignmentStatus.PENDING, AssignmentStatus.IN_PROGRESS))
+                .stream()
+                .map(entity -> RouteAssignmentDto.toDto(entity, null))
+                .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("Error trying to get assignments for operator: {}", operatorId, e);
+            throw new RoutesDatabaseException("Error trying to get assignments", e);
+        }
+    }
+
+    @Override
+    public RouteAssignmentDto getAssignment(String id) {
+        Optional<RouteAssignmentEntity> entity;
+        try {
+            entity = routeAssignmentRepository.findById(id);
+        } catch (Exception e) {
+            log.error("Error trying to find route assignment with ID: {}", id, e);
+            throw new RoutesDatabaseException("Error trying to find route assignment", e);
+        }
+        RouteAssignmentEntity assignment = entity.orElseThrow(() -> new RouteAssignmentNotFoundException(id));
+        try {
+            return RouteAssignmentDto.toDto(assignment, assignment.getRouteData() == null ? null
+                : objectMapper.readValue(assignment.getRouteData(), OptimizedRouteResponse.class));
+        } catch (JsonProcessingException e) {
+            log.error("Error trying to read the route data of assignment with ID: {}", id, e);
+            throw new RoutesDatabaseException("Error trying to read route assignment", e);
+        }
+    }
+
+    @Override
+    public List<RouteAssignmentDto> getAssignments(Long customerId, Long cityId, LocalDate scheduledFrom,
+        LocalDate scheduledTo, Integer limit) {
+        log.info("Getting assignments for customerId: {}, cityId: {} scheduled from: {} to: {}", customerId, cityId,
+            scheduledFrom, scheduledTo);
+        // Mongo takes a limit of 0 as no limit
+        if (limit == null || limit <= 0)
+            limit = 500;
+        if (limit > 2000)
+            limit = 2000;
+        try {
+            return routeAssignmentRepository.findSummaries(customerId, cityId, scheduledFrom, scheduledTo, limit)
+                .stream()
+                .map(entity -> RouteAssignmentDto.toDto(entity, null))
+                .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("Error trying to get assignments for customerId: {}, cityId: {}", customerId, cityId, e);
+            throw new RoutesDatabaseException("Error trying to get assignments", e);
+        }
     }
 
     @Override
     public RouteAssignmentDto updateAssignmentStatus(String id, AssignmentStatus status) {
         log.info("Updating assignment {} to status: {}", id, status);
-        // TODO: Implement database update
-        return null;
+        if (status == null)
+            throw new RouteValidationException("Trying to update status: error request validation.",
+                List.of("status: is required"));
+        Optional<RouteAssignmentEntity> updated;
+        try {
+            updated = routeAssignmentRepository.updateStatus(id, status, Instant.now());
+        } catch (Exception e) {
+            log.error("Error trying to update route assignment with ID: {} to status: {}", id, status, e);
+            throw new RoutesDatabaseException("Error trying to update route assignment status", e);
+        }
+        return RouteAssignmentDto.toDto(updated.orElseThrow(() -> transitionError(id, status)), null);
+    }
+
+    private RouteAssignmentDto createAssignment(RouteAssignmentDto data, Instant now) {
+        var entity = RouteAssignmentEntity.builder()
+                .id(UUID.randomUUID().toString())
+                .routeName(data.getRouteName())
+                .cityId(data.getCityId())
+                .customerId(data.getCustomerId())
+                .supervisorId(data.getSupervisorId())
+                .truckId(StringUtils.trimToNull(data.getTruckId()))
+                .operatorId(StringUtils.trimToNull(data.getOperatorId()))
+                .scheduledDate(data.getScheduledDate())
+                .notes(StringUtils.trimToNull(data.getNotes()))
+                .status(AssignmentStatus.PENDING)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        try {
+            entity.setRouteData(data.getRouteData() == null ? null : objectMapper.writeValueAsString(data.getRouteData()));
+        } catch (JsonProcessingException e) {
+            throw new RouteValidationException("Trying to assign: error route assignment request validation.",
+                List.of("routeData: invalid format"));
+        }
+        var listErrors = entity.validate();
+        if (!listErrors.isEmpty())
+            throw new RouteValidationException("Trying to assign: error route assignment entity validation.", listErrors);
+        try {
+            routeAssignmentRepository.save(entity);
+        } catch (Exception e) {
+            log.error("Error trying to save route assignment with ID: {}", entity.getId(), e);
+            throw new RoutesDatabaseException("Error trying to save route assignment", e);
+        }
+        return RouteAssignmentDto.toDto(entity, data.getRouteData());
+    }
+
+    // The update matched nothing, either the assignment is missing or its status does not allow the change
+    private RuntimeException transitionError(String id, AssignmentStatus status) {
+        boolean exists;
+        try {
+            exists = routeAssignmentRepository.existsById(id);
+        } catch (Exception e) {
+            log.error("Error trying to find route assignment with ID: {}", id, e);
+            return new RoutesDatabaseException("Error trying to find route assignment", e);
+        }
+        if (!exists)
+            return new RouteAssignmentNotFoundException(id);
+        return new RouteLogicException("Route assignment " + id + " cannot change to status " + status
+            + (status == AssignmentStatus.PENDING ? " from its current status or without an operator" : " from its current status"));
     }
 
     private List<ContainerDto> getFilteredContainers(Long customerId, OptimizeRouteDto data) {
         log.info("Trying to get containers for customerId: {} OptimizeRoute: {}", customerId, data);
-        return this.containerClient.findByCustomerIdAndCityIdAndZoneId(customerId, data.getCityId(),
-            data.getZoneId(), LIMIT_CONTAINERS_REQ);
+        return containerSnapshotCache.findRoutingDataByZone(customerId, data.getCityId(), data.getZoneId(),
+            data.getWasteTypes(), data.getMinFillValue(), data.getPlannedFor());
     }
 
     private List<TruckDto> getAvailableTrucks(Long customerId, Long cityId) {
         return truckService.findByCustomerCityAndAvailable(customerId, cityId, true);
     }
 
-    private VRPSolution solveVRP(Point depot, List<ContainerDto> containers, List<TruckDto> trucks) {
+    // Package visible, like toNodes, for the benchmarks module.
+    // Stages work on node indexes of one RoutingNodes, where node i + 1 is containers.get(i),
+    // and points are only built for the response. Windows, null without time constraints, replace the strategy.
+    VRPSolution solveVRP(Point depot, List<ContainerDto> containers, List<TruckDto> trucks,
+        RoutingStrategy strategy, TimeWindows windows, OptimizationProgress progress) {
         if (containers.isEmpty()) {
             return VRPSolution.builder()
                     .routes(new ArrayList<>())
@@ -84,33 +361,93 @@ public class RouteIntegrationServiceImpl implements RouteIntegrationService {
                     .build();
         }
 
-        List<Point> points = containers.stream()
-                .map(c -> Point.builder()
-                        .lat(c.getLatitude())
-                        .lng(c.getLongitude())
-                        .id(c.getId())
-                        .priority(getPriority(c.getWasteLevelStatus()))
-                        .build())
-                .collect(Collectors.toList());
+        RoutingNodes nodes = toNodes(depot, containers);
+        String[] ids = new String[containers.size()];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = containers.get(i).getId();
 
-        List<Point> sortedPoints = sweepSort(depot, points);
-        List<OptimizedRouteResponse.RouteResult> routes = partitionIntoRoutes(depot, sortedPoints, trucks);
-        List<OptimizedRouteResponse.RouteResult> optimizedRoutes = routes.stream()
-                .map(this::dijkstraOptimize)
-                .collect(Collectors.toList());
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimitMs);
+        // One set of matrices for the whole request, on the same nodes
+        TravelMatrices matrices = distanceMatrixCache.forNodes(nodes, ids);
+        DistanceMatrix matrix = matrices.distances();
+        if (windows != null)
+            return timedSolution(nodes, ids, containers, trucks, matrices, windows, deadlineNanos, progress);
+        List<PlannedRoute> routes = switch (strategy) {
+            case SAVINGS -> savingsRoutes(containers, trucks, matrix, deadlineNanos);
+            case CLUSTER -> clusterRoutes(nodes, containers, trucks, matrix);
+            case SWEEP -> sweepRoutes(nodes, trucks);
+        };
+        progress.checkCancelled();
+        List<OptimizedRouteResponse.RouteResult> optimizedRoutes = optimizeRoutes(routes, nodes, ids, matrices,
+                deadlineNanos, progress);
+        return toSolution(optimizedRoutes, null);
+    }
 
+    private VRPSolution toSolution(List<OptimizedRouteResponse.RouteResult> optimizedRoutes,
+        List<String> unassignedContainerIds) {
         double totalDistance = optimizedRoutes.stream()
-                .mapToDouble(route -> calculateTotalDistance(route.getPoints()))
+                .mapToDouble(OptimizedRouteResponse.RouteResult::getDistance)
+                .sum();
+        double initialTotalDistance = optimizedRoutes.stream()
+                .mapToDouble(OptimizedRouteResponse.RouteResult::getInitialDistance)
                 .sum();
 
         return VRPSolution.builder()
                 .routes(optimizedRoutes)
-                .totalDistance(Math.round(totalDistance * 100.0) / 100.0)
-                .estimatedTime((int) Math.round((totalDistance / 30) * 60))
-                .trucksUsed(optimizedRoutes.size())
+                .totalDistance(round(totalDistance))
+                .initialTotalDistance(round(initialTotalDistance))
+                .estimatedTime(optimizedRoutes.stream().mapToInt(this::estimatedTime).sum())
+                .trucksUsed((int) optimizedRoutes.stream()
+                        .map(OptimizedRouteResponse.RouteResult::getTruckId)
+                        .distinct()
+                        .count())
+                .unassignedContainerIds(unassignedContainerIds)
                 .build();
     }
 
+    RoutingNodes toNodes(Point depot, List<ContainerDto> containers) {
+        RoutingNodes nodes = new RoutingNodes(containers.size());
+        nodes.lat()[0] = depot.getLat();
+        nodes.lng()[0] = depot.getLng();
+        nodes.priority()[0] = 1;
+        for (int i = 0; i < containers.size(); i++) {
+            ContainerDto container = containers.get(i);
+            nodes.lat()[i + 1] = container.getLatitude();
+            nodes.lng()[i + 1] = container.getLongitude();
+            nodes.priority()[i + 1] = getPriority(container.getWasteLevelStatus());
+        }
+        return nodes;
+    }
+
+    private Point toPoint(ContainerDto container) {
+        return Point.builder()
+                .lat(container.getLatitude())
+                .lng(container.getLongitude())
+                .id(container.getId())
+                .priority(getPriority(container.getWasteLevelStatus()))
+                .build();
+    }
+
+    private Point toPoint(RoutingNodes nodes, String[] ids, int node) {
+        return Point.builder()
+                .lat(nodes.lat()[node])
+                .lng(nodes.lng()[node])
+                .id(ids[node - 1])
+                .priority(nodes.priority()[node])
+                .build();
+    }
+
+    private int estimatedTime(OptimizedRouteResponse.RouteResult route) {
+        return route.getEstimatedTime() == null ? 0 : route.getEstimatedTime();
+    }
+
+    // Minutes from the depot through the stops and back
+    private int estimateMinutes(DistanceMatrix minutes, int[] stops) {
+        int[] tour = new int[stops.length + 2];
+        System.arraycopy(stops, 0, tour, 1, stops.length);
+        return (int) Math.round(LocalSearch.tourLength(minutes, tour));
+    }
+
     private int getPriority(WasteLevel wasteLevel) {
         return switch (wasteLevel) {
             case HEAVY -> 3;
@@ -119,101 +456,568 @@ public class RouteIntegrationServiceImpl implements RouteIntegrationService {
         };
     }
 
-    private List<Point> sweepSort(Point depot, List<Point> points) {
-        return points.stream()
-                .sorted((a, b) -> {
-                    double angleA = Math.atan2(a.getLat() - depot.getLat(), a.getLng() - depot.getLng());
-                    double angleB = Math.atan2(b.getLat() - depot.getLat(), b.getLng() - depot.getLng());
-                    return Double.compare(angleA, angleB);
-                })
-                .collect(Collectors.toList());
+    private List<PlannedRoute> sweepRoutes(RoutingNodes nodes, List<TruckDto> trucks) {
+        List<int[]> routes = SweepPartition.partition(SweepPartition.sweepOrder(nodes), trucks.size());
+        List<PlannedRoute> planned = new ArrayList<>(routes.size());
+        for (int r = 0; r < routes.size(); r++)
+            planned.add(new PlannedRoute(routes.get(r), trucks.get(r), null, null, null));
+        return planned;
     }
 
-    private List<OptimizedRouteResponse.RouteResult> partitionIntoRoutes(Point depot, List<Point> points, List<TruckDto> trucks) {
-        List<OptimizedRouteResponse.RouteResult> routes = new ArrayList<>();
-        int maxPointsPerTruck = (int) Math.ceil((double) points.size() / trucks.size());
+    // Capacitated routes: node i + 1 is the container i, with a demand given by its fill level.
+    // Routes are built for the largest truck and then assigned to trucks as consecutive trips.
+    private List<PlannedRoute> savingsRoutes(List<ContainerDto> containers, List<TruckDto> trucks,
+        DistanceMatrix matrix, long deadlineNanos) {
+        if (containers.size() > SavingsSolver.MAX_NODES)
+            throw new RouteLogicException("The savings strategy takes at most " + SavingsSolver.MAX_NODES
+                + " containers, use the cluster or sweep strategy");
+        double[] demand = getDemands(containers);
+        int[] nodes = new int[containers.size()];
+        for (int i = 0; i < containers.size(); i++)
+            nodes[i] = i + 1;
+        double[] capacities = getCapacities(trucks);
+        double maxCapacity = Arrays.stream(capacities).max().orElse(0);
 
-        for (int i = 0; i < trucks.size() && i * maxPointsPerTruck < points.size(); i++) {
-            int start = i * maxPointsPerTruck;
-            int end = Math.min(start + maxPointsPerTruck, points.size());
-            List<Point> routePoints = new ArrayList<>();
-            routePoints.add(depot);
-            routePoints.addAll(points.subList(start, end));
-            routePoints.add(depot);
+        List<int[]> routes = SavingsSolver.solve(matrix, 0, nodes, demand, maxCapacity);
+        InterRouteSearch.relocate(matrix, 0, routes, demand, maxCapacity, deadlineNanos);
+        log.info("Capacitated routes built: {}, trucks: {}, containers: {}", routes.size(), trucks.size(),
+            containers.size());
+        return assignTrips(routes, demand, capacities, trucks, matrix);
+    }
 
-            routes.add(OptimizedRouteResponse.RouteResult.builder()
-                    .truckId(trucks.get(i).getId())
-                    .truckName(trucks.get(i).getName())
-                    .points(routePoints)
-                    .build());
+    // Cluster first, route second: one capacitated cluster per truck at least, and as many trips as the load needs
+    private List<PlannedRoute> clusterRoutes(RoutingNodes nodes, List<ContainerDto> containers, List<TruckDto> trucks,
+        DistanceMatrix matrix) {
+        double[] demand = getDemands(containers);
+        double[] capacities = getCapacities(trucks);
+        double maxCapacity = Arrays.stream(capacities).max().orElse(0);
+
+        List<int[]> clusters = CapacitatedKMeans.cluster(nodes, demand, maxCapacity, trucks.size(), routeOptimizationPool);
+        // Nearest neighbour order, so trips are balanced on a route length close to the final one
+        clusters.replaceAll(cluster -> {
+            int[] tour = LocalSearch.nearestNeighbour(matrix, 0, cluster);
+            return Arrays.copyOfRange(tour, 1, tour.length - 1);
+        });
+        log.info("Capacitated clusters built: {}, trucks: {}, containers: {}", clusters.size(), trucks.size(),
+            containers.size());
+        return assignTrips(clusters, demand, capacities, trucks, matrix);
+    }
+
+    private double[] getDemands(List<ContainerDto> containers) {
+        double[] demand = new double[containers.size() + 1];
+        for (int i = 0; i < containers.size(); i++)
+            demand[i + 1] = getDemand(containers.get(i));
+        return demand;
+    }
+
+    private double[] getCapacities(List<TruckDto> trucks) {
+        double[] capacities = trucks.stream()
+                .mapToDouble(t -> t.getCapacity() == null ? 0 : t.getCapacity().doubleValue())
+                .toArray();
+        if (Arrays.stream(capacities).max().orElse(0) <= 0) {
+            throw new RouteLogicException("Available trucks have no capacity");
         }
+        return capacities;
+    }
 
-        return routes;
+    // Routes sized for the largest truck, given to the trucks as consecutive trips
+    private List<PlannedRoute> assignTrips(List<int[]> routes, double[] demand, double[] capacities,
+        List<TruckDto> trucks, DistanceMatrix matrix) {
+        double[] loads = new double[routes.size()];
+        double[] distances = new double[routes.size()];
+        for (int r = 0; r < routes.size(); r++) {
+            loads[r] = InterRouteSearch.load(routes.get(r), demand);
+            distances[r] = InterRouteSearch.routeLength(matrix, 0, routes.get(r));
+        }
+        int[] truckOfRoute = TripAssignment.assign(loads, distances, capacities);
+        int[] trips = new int[trucks.size()];
+
+        List<PlannedRoute> planned = new ArrayList<>(routes.size());
+        for (int r = 0; r < routes.size(); r++) {
+            planned.add(new PlannedRoute(routes.get(r), trucks.get(truckOfRoute[r]), ++trips[truckOfRoute[r]],
+                    round(loads[r]), capacities[truckOfRoute[r]]));
+        }
+        return planned;
+    }
+
+    // Minutes of the day for the solver. Containers without a window can be emptied at any time of the shift.
+    private TimeWindows toTimeWindows(OptimizeRouteDto data, List<ContainerDto> containers, List<TruckDto> trucks) {
+        int size = containers.size() + 1;
+        double[] earliest = new double[size];
+        double[] latest = new double[size];
+        double[] service = new double[size];
+        Arrays.fill(latest, MINUTES_PER_DAY);
+        Arrays.fill(service, 1, size, data.getServiceMinutes() == null ? serviceMinutes : data.getServiceMinutes());
+        Map<String, ContainerTimeWindowDto> containerWindows = data.getContainerTimeWindows() == null ? Map.of()
+                : data.getContainerTimeWindows().stream()
+                        .collect(Collectors.toMap(ContainerTimeWindowDto::getContainerId, w -> w, (a, b) -> b));
+        for (int i = 0; i < containers.size(); i++) {
+            ContainerTimeWindowDto window = containerWindows.get(containers.get(i).getId());
+            if (window == null)
+                continue;
+            if (window.getStart() != null)
+                earliest[i + 1] = toMinutes(window.getStart());
+            if (window.getEnd() != null)
+                latest[i + 1] = toMinutes(window.getEnd());
+            if (window.getServiceMinutes() != null)
+                service[i + 1] = window.getServiceMinutes();
+        }
+
+        double defaultStart = data.getShiftStart() == null ? 0 : toMinutes(data.getShiftStart());
+        double defaultEnd = data.getShiftEnd() == null ? MINUTES_PER_DAY : toMinutes(data.getShiftEnd());
+        Map<String, TruckShiftDto> truckShifts = data.getTruckShifts() == null ? Map.of()
+                : data.getTruckShifts().stream()
+                        .collect(Collectors.toMap(TruckShiftDto::getTruckId, s -> s, (a, b) -> b));
+        double[] shiftStart = new double[trucks.size()];
+        double[] shiftEnd = new double[trucks.size()];
+        for (int v = 0; v < trucks.size(); v++) {
+            TruckShiftDto shift = truckShifts.get(trucks.get(v).getId());
+            shiftStart[v] = shift == null || shift.getStart() == null ? defaultStart : toMinutes(shift.getStart());
+            shiftEnd[v] = shift == null || shift.getEnd() == null ? defaultEnd : toMinutes(shift.getEnd());
+        }
+        return new TimeWindows(earliest, latest, service, shiftStart, shiftEnd);
     }
 
-    private OptimizedRouteResponse.RouteResult dijkstraOptimize(OptimizedRouteResponse.RouteResult route) {
-        List<Point> points = route.getPoints();
-        if (points.size() <= 3) return route;
+    private static double toMinutes(LocalTime time) {
+        return time.toSecondOfDay() / 60.0;
+    }
 
-        List<Point> optimized = new ArrayList<>();
-        optimized.add(points.get(0)); // start depot
-        List<Point> unvisited = new ArrayList<>(points.subList(1, points.size() - 1));
-        Point current = points.get(0);
+    private static LocalTime toLocalTime(double minutes) {
+        return LocalTime.ofSecondOfDay(Math.min(Math.round(minutes * 60), LocalTime.MAX.toSecondOfDay()));
+    }
 
-        while (!unvisited.isEmpty()) {
-            Point nearest = findNearest(current, unvisited);
-            unvisited.remove(nearest);
-            optimized.add(nearest);
-            current = nearest;
+    // One route per truck inside its shift, built by cheapest feasible insertion and improved by relocating
+    // stops; containers that fit no shift on time are reported instead of breaking a window.
+    // Trucks without capacity are only bounded by time.
+    private VRPSolution timedSolution(RoutingNodes nodes, String[] ids, List<ContainerDto> containers,
+        List<TruckDto> trucks, TravelMatrices matrices, TimeWindows windows, long deadlineNanos,
+        OptimizationProgress progress) {
+        double[] demand = getDemands(containers);
+        double[] capacities = trucks.stream()
+                .mapToDouble(t -> t.getCapacity() == null || t.getCapacity().signum() <= 0 ? Double.MAX_VALUE
+                        : t.getCapacity().doubleValue())
+                .toArray();
+        int[] stops = IntStream.rangeClosed(1, containers.size()).toArray();
+        List<int[]> routes = TimeWindowSearch.insert(matrices.distances(), matrices.minutes(), windows, demand,
+                capacities, stops);
+
+        boolean[] routed = new boolean[containers.size() + 1];
+        List<Integer> vehicles = new ArrayList<>();
+        for (int v = 0; v < routes.size(); v++) {
+            for (int node : routes.get(v))
+                routed[node] = true;
+            if (routes.get(v).length > 0)
+                vehicles.add(v);
+        }
+        List<String> unassigned = new ArrayList<>();
+        for (int node = 1; node < routed.length; node++) {
+            if (!routed[node])
+                unassigned.add(ids[node - 1]);
         }
+        log.info("Time window routes built: {}, trucks: {}, containers: {}, unassigned: {}", vehicles.size(),
+            trucks.size(), containers.size(), unassigned.size());
+        progress.routesBuilt(vehicles.stream()
+                .mapToDouble(v -> InterRouteSearch.routeLength(matrices.distances(), 0, routes.get(v)))
+                .toArray());
 
-        optimized.add(points.get(points.size() - 1)); // end depot
+        List<ForkJoinTask<OptimizedRouteResponse.RouteResult>> tasks = new ArrayList<>(vehicles.size());
+        for (int r = 0; r < vehicles.size(); r++) {
+            int route = r;
+            int vehicle = vehicles.get(r);
+            var task = routeOptimizationPool.submit(() -> optimizeTimedRoute(routes.get(vehicle), vehicle,
+                    trucks.get(vehicle), capacities[vehicle], demand, nodes, ids, matrices, windows, deadlineNanos,
+                    distance -> progress.routeOptimized(route, distance)));
+            progress.track(task);
+            tasks.add(task);
+        }
+        return toSolution(tasks.stream().map(ForkJoinTask::join).collect(Collectors.toList()), unassigned);
+    }
+
+    private OptimizedRouteResponse.RouteResult optimizeTimedRoute(int[] stops, int vehicle, TruckDto truck,
+        double capacity, double[] demand, RoutingNodes nodes, String[] ids, TravelMatrices matrices,
+        TimeWindows windows, long deadlineNanos, DoubleConsumer onOptimized) {
+        int[] tour = new int[stops.length + 2];
+        System.arraycopy(stops, 0, tour, 1, stops.length);
+        double initialDistance = LocalSearch.tourLength(matrices.distances(), tour);
+        TimeWindowSearch.improve(matrices.distances(), matrices.minutes(), windows, vehicle, tour, deadlineNanos);
+        double distance = LocalSearch.tourLength(matrices.distances(), tour);
+        onOptimized.accept(distance);
+
+        Point depot = new Point(nodes.lat()[0], nodes.lng()[0]);
+        List<Point> points = new ArrayList<>(tour.length);
+        for (int node : tour)
+            points.add(node == 0 ? depot : toPoint(nodes, ids, node));
+        double[] starts = TimeWindowSearch.startTimes(matrices.minutes(), windows, vehicle, tour);
+        boolean bounded = capacity < Double.MAX_VALUE;
 
         return OptimizedRouteResponse.RouteResult.builder()
-                .truckId(route.getTruckId())
-                .truckName(route.getTruckName())
-                .points(optimized)
+                .truckId(truck.getId())
+                .truckName(truck.getName())
+                .points(points)
+                .load(bounded ? round(InterRouteSearch.load(stops, demand)) : null)
+                .capacity(bounded ? capacity : null)
+                .distance(round(distance))
+                .initialDistance(round(initialDistance))
+                .estimatedTime(scheduledMinutes(starts))
+                .scheduledTimes(toLocalTimes(starts))
                 .build();
     }
 
-    private Point findNearest(Point current, List<Point> points) {
-        return points.stream()
-                .min((a, b) -> Double.compare(
-                        calculateDistance(current, a),
-                        calculateDistance(current, b)))
-                .orElse(current);
+    // Minutes from leaving the depot to being back, with the service and the waits of the schedule
+    private static int scheduledMinutes(double[] starts) {
+        return (int) Math.round(starts[starts.length - 1] - starts[0]);
+    }
+
+    private static List<LocalTime> toLocalTimes(double[] starts) {
+        return Arrays.stream(starts)
+                .mapToObj(RouteIntegrationServiceImpl::toLocalTime)
+                .collect(Collectors.toList());
+    }
+
+    private double getDemand(ContainerDto container) {
+        double fill = container == null || container.getWasteLevelValue() == null ? 0 : container.getWasteLevelValue();
+        return Math.max(0, Math.min(100, fill)) / 100 * containerCapacity;
     }
 
-    private double calculateDistance(Point p1, Point p2) {
-        final double R = 6371; // Earth's radius in km
-        double dLat = toRad(p2.getLat() - p1.getLat());
-        double dLng = toRad(p2.getLng() - p1.getLng());
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                Math.cos(toRad(p1.getLat())) * Math.cos(toRad(p2.getLat())) *
-                Math.sin(dLng / 2) * Math.sin(dLng / 2);
-        return R * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    // Routes are improved in parallel on the shared pool, all of them against the same request deadline
+    private List<OptimizedRouteResponse.RouteResult> optimizeRoutes(List<PlannedRoute> routes, RoutingNodes nodes,
+        String[] ids, TravelMatrices matrices, long deadlineNanos, OptimizationProgress progress) {
+        DistanceMatrix matrix = matrices.distances();
+        double[] constructedDistances = new double[routes.size()];
+        for (int r = 0; r < routes.size(); r++)
+            constructedDistances[r] = InterRouteSearch.routeLength(matrix, 0, routes.get(r).nodes());
+        progress.routesBuilt(constructedDistances);
+
+        List<ForkJoinTask<OptimizedRouteResponse.RouteResult>> tasks = new ArrayList<>(routes.size());
+        for (int r = 0; r < routes.size(); r++) {
+            int route = r;
+            var task = routeOptimizationPool.submit(() -> optimizeRouteOrder(routes.get(route), nodes, ids, matrices,
+                    deadlineNanos, result -> progress.routeOptimized(route, result.distance())));
+            progress.track(task);
+            tasks.add(task);
+        }
+        return tasks.stream()
+                .map(ForkJoinTask::join)
+                .collect(Collectors.toList());
     }
 
-    private double toRad(double deg) {
-        return deg * (Math.PI / 180);
+    private OptimizedRouteResponse.RouteResult optimizeRouteOrder(PlannedRoute route, RoutingNodes nodes, String[] ids,
+        TravelMatrices matrices, long deadlineNanos, Consumer<TourResult> onOptimized) {
+        TourResult tour = routeOptimizationService.optimize(matrices.distances(), 0, route.nodes(), deadlineNanos);
+        onOptimized.accept(tour);
+
+        Point depot = new Point(nodes.lat()[0], nodes.lng()[0]);
+        List<Point> points = new ArrayList<>(tour.order().length + 2);
+        points.add(depot);
+        for (int node : tour.order())
+            points.add(toPoint(nodes, ids, node));
+        points.add(depot);
+
+        return OptimizedRouteResponse.RouteResult.builder()
+                .truckId(route.truck().getId())
+                .truckName(route.truck().getName())
+                .points(points)
+                .trip(route.trip())
+                .load(route.load())
+                .capacity(route.capacity())
+                .distance(round(tour.distance()))
+                .initialDistance(round(tour.initialDistance()))
+                .estimatedTime(estimateMinutes(matrices.minutes(), tour.order()))
+                .build();
+    }
+
+    // Removed stops leave their routes and each new one goes to the cheapest position among the routes
+    // with spare capacity, or to a new trip of the largest truck when none has. Plans solved with time
+    // constraints keep their windows and one route per truck instead, and stops that fit no route on time
+    // are reported as unassigned. Only the changed routes are improved again, the others are kept as they
+    // are. Positions and routes are measured on one set of matrices of the distance provider, where node 0
+    // is the depot and node i the point i of the repair.
+    private RoutePlan repairPlan(RoutePlan plan, List<ContainerDto> toInsert, Set<String> toRemove,
+        Map<String, ContainerDto> zoneContainers) {
+        Point depot = plan.depot();
+        List<OptimizedRouteResponse.RouteResult> routes = plan.windows() == null
+                ? new ArrayList<>(plan.response().getRoutes())
+                : truckRoutes(plan.windows(), plan.response().getRoutes(), depot);
+        List<Point> points = new ArrayList<>();
+        points.add(depot);
+        List<List<Integer>> stops = new ArrayList<>(routes.size());
+        boolean[] changed = new boolean[routes.size() + toInsert.size()];
+        for (int r = 0; r < routes.size(); r++) {
+            List<Point> routePoints = routes.get(r).getPoints();
+            List<Integer> routeStops = new ArrayList<>(routePoints.size());
+            for (Point point : routePoints.subList(1, routePoints.size() - 1)) {
+                if (toRemove.contains(point.getId())) {
+                    changed[r] = true;
+                    continue;
+                }
+                points.add(point);
+                routeStops.add(points.size() - 1);
+            }
+            stops.add(routeStops);
+        }
+        double[] loads = new double[changed.length];
+        for (int r = 0; r < routes.size(); r++) {
+            if (routes.get(r).getCapacity() == null)
+                continue;
+            loads[r] = changed[r]
+                    ? stops.get(r).stream().mapToDouble(node -> getDemand(zoneContainers.get(points.get(node).getId()))).sum()
+                    : routes.get(r).getLoad();
+        }
+
+        // Another repair may have inserted some of them since the plan was read
+        Set<String> planned = points.stream()
+                .skip(1)
+                .map(Point::getId)
+                .collect(Collectors.toSet());
+        int firstInserted = points.size();
+        List<ContainerDto> inserted = new ArrayList<>(toInsert.size());
+        for (ContainerDto container : toInsert) {
+            if (planned.add(container.getId())) {
+                inserted.add(container);
+                points.add(toPoint(container));
+            }
+        }
+        TravelMatrices matrices = travelMatrices(points);
+        TimeWindows windows = plan.windows() == null ? null : repairWindows(plan.windows(), points);
+        List<String> unplaced = windows == null
+                ? insertCheapest(matrices.distances(), routes, stops, loads, changed, inserted, firstInserted)
+                : insertOnTime(matrices, windows, routes, stops, loads, changed, points, zoneContainers, firstInserted);
+
+        List<OptimizedRouteResponse.RouteResult> repaired = new ArrayList<>(routes.size());
+        for (int r = 0; r < routes.size(); r++) {
+            if (stops.get(r).isEmpty())
+                continue;
+            OptimizedRouteResponse.RouteResult route = routes.get(r);
+            repaired.add(changed[r] ? improveRoute(route, points, stops.get(r), matrices,
+                    route.getCapacity() == null ? null : round(loads[r]), windows, r) : route);
+        }
+        // Containers still left out, and the new ones that fit no route on time
+        List<String> unassigned = new ArrayList<>();
+        if (plan.response().getUnassignedContainerIds() != null)
+            plan.response().getUnassignedContainerIds().stream()
+                    .filter(id -> !planned.contains(id) && !toRemove.contains(id))
+                    .forEach(unassigned::add);
+        unassigned.addAll(unplaced);
+        double totalDistance = repaired.stream().mapToDouble(OptimizedRouteResponse.RouteResult::getDistance).sum();
+        double initialTotalDistance = repaired.stream().mapToDouble(OptimizedRouteResponse.RouteResult::getInitialDistance).sum();
+        OptimizedRouteResponse response = OptimizedRouteResponse.builder()
+                .planId(plan.id())
+                .routes(repaired)
+                .totalDistance(round(totalDistance))
+                .initialTotalDistance(round(initialTotalDistance))
+                .containerCount(repaired.stream().mapToInt(route -> route.getPoints().size() - 2).sum())
+                .estimatedTime(repaired.stream().mapToInt(this::estimatedTime).sum())
+                .trucksUsed((int) repaired.stream()
+                        .map(OptimizedRouteResponse.RouteResult::getTruckId)
+                        .distinct()
+                        .count())
+                .unassignedContainerIds(windows == null && plan.response().getUnassignedContainerIds() == null ? null
+                        : unassigned)
+                .build();
+        return new RoutePlan(plan.id(), plan.customerId(), plan.cityId(), plan.zoneId(), depot, response,
+                plan.windows());
     }
 
-    private double calculateTotalDistance(List<Point> route) {
-        double total = 0;
-        for (int i = 0; i < route.size() - 1; i++) {
-            total += calculateDistance(route.get(i), route.get(i + 1));
+    // Cheapest position among the routes with spare capacity, or a new trip of the largest truck; none is left out
+    private List<String> insertCheapest(DistanceMatrix matrix, List<OptimizedRouteResponse.RouteResult> routes,
+        List<List<Integer>> stops, double[] loads, boolean[] changed, List<ContainerDto> inserted, int firstInserted) {
+        for (int i = 0; i < inserted.size(); i++) {
+            int node = firstInserted + i;
+            double demand = getDemand(inserted.get(i));
+            int bestRoute = -1;
+            int bestPosition = -1;
+            double bestDelta = Double.MAX_VALUE;
+            for (int r = 0; r < stops.size(); r++) {
+                Double capacity = routes.get(r).getCapacity();
+                if (capacity != null && loads[r] + demand > capacity)
+                    continue;
+                List<Integer> routeStops = stops.get(r);
+                for (int p = 0; p <= routeStops.size(); p++) {
+                    int before = p == 0 ? 0 : routeStops.get(p - 1);
+                    int after = p == routeStops.size() ? 0 : routeStops.get(p);
+                    double delta = matrix.distance(before, node) + matrix.distance(node, after)
+                        - matrix.distance(before, after);
+                    if (delta < bestDelta) {
+                        bestDelta = delta;
+                        bestRoute = r;
+                        bestPosition = p;
+                    }
+                }
+            }
+            if (bestRoute < 0) {
+                routes.add(newTrip(routes));
+                stops.add(new ArrayList<>());
+                bestRoute = routes.size() - 1;
+                bestPosition = 0;
+            }
+            stops.get(bestRoute).add(bestPosition, node);
+            loads[bestRoute] += demand;
+            changed[bestRoute] = true;
         }
-        return Math.round(total * 100.0) / 100.0;
+        return List.of();
+    }
+
+    // Cheapest insertion that keeps the windows and shifts of the planned routes, vehicle v being route v
+    private List<String> insertOnTime(TravelMatrices matrices, TimeWindows windows,
+        List<OptimizedRouteResponse.RouteResult> routes, List<List<Integer>> stops, double[] loads, boolean[] changed,
+        List<Point> points, Map<String, ContainerDto> zoneContainers, int firstInserted) {
+        double[] demand = new double[points.size()];
+        for (int node = 1; node < points.size(); node++)
+            demand[node] = getDemand(zoneContainers.get(points.get(node).getId()));
+        double[] capacities = routes.stream()
+                .mapToDouble(route -> route.getCapacity() == null ? Double.MAX_VALUE : route.getCapacity())
+                .toArray();
+        List<int[]> planned = stops.stream()
+                .map(routeStops -> routeStops.stream().mapToInt(Integer::intValue).toArray())
+                .collect(Collectors.toList());
+        int[] nodes = IntStream.range(firstInserted, points.size()).toArray();
+        List<int[]> inserted = TimeWindowSearch.insert(matrices.distances(), matrices.minutes(), windows, demand,
+                capacities, planned, nodes);
+
+        boolean[] routed = new boolean[points.size()];
+        for (int r = 0; r < inserted.size(); r++) {
+            for (int node : inserted.get(r))
+                routed[node] = true;
+            if (inserted.get(r).length == planned.get(r).length)
+                continue;
+            stops.set(r, Arrays.stream(inserted.get(r)).boxed().collect(Collectors.toList()));
+            loads[r] = InterRouteSearch.load(inserted.get(r), demand);
+            changed[r] = true;
+        }
+        List<String> unplaced = new ArrayList<>();
+        for (int node : nodes) {
+            if (!routed[node])
+                unplaced.add(points.get(node).getId());
+        }
+        return unplaced;
+    }
+
+    // One route per truck of a timed plan in the order of its vehicles, an empty one for the trucks without stops
+    private List<OptimizedRouteResponse.RouteResult> truckRoutes(PlanWindows planWindows,
+        List<OptimizedRouteResponse.RouteResult> planned, Point depot) {
+        Map<String, OptimizedRouteResponse.RouteResult> byTruck = planned.stream()
+                .collect(Collectors.toMap(OptimizedRouteResponse.RouteResult::getTruckId, route -> route, (a, b) -> a));
+        List<OptimizedRouteResponse.RouteResult> routes = new ArrayList<>(planWindows.trucks().size());
+        for (TruckDto truck : planWindows.trucks()) {
+            OptimizedRouteResponse.RouteResult route = byTruck.get(truck.getId());
+            boolean bounded = truck.getCapacity() != null && truck.getCapacity().signum() > 0;
+            routes.add(route != null ? route : OptimizedRouteResponse.RouteResult.builder()
+                    .truckId(truck.getId())
+                    .truckName(truck.getName())
+                    .points(List.of(depot, depot))
+                    .load(bounded ? 0.0 : null)
+                    .capacity(bounded ? truck.getCapacity().doubleValue() : null)
+                    .build());
+        }
+        return routes;
+    }
+
+    // Windows of a timed plan on the nodes of its repair, vehicle v being the truck of the solve
+    private TimeWindows repairWindows(PlanWindows planWindows, List<Point> points) {
+        TimeWindows solved = planWindows.windows();
+        Map<String, Integer> solvedNodes = new HashMap<>();
+        for (int i = 0; i < planWindows.containerIds().size(); i++)
+            solvedNodes.put(planWindows.containerIds().get(i), i + 1);
+        int size = points.size();
+        double[] earliest = new double[size];
+        double[] latest = new double[size];
+        double[] service = new double[size];
+        Arrays.fill(latest, MINUTES_PER_DAY);
+        Arrays.fill(service, 1, size, planWindows.serviceMinutes());
+        for (int node = 1; node < size; node++) {
+            Integer solvedNode = solvedNodes.get(points.get(node).getId());
+            if (solvedNode == null)
+                continue;
+            earliest[node] = solved.earliest()[solvedNode];
+            latest[node] = solved.latest()[solvedNode];
+            service[node] = solved.service()[solvedNode];
+        }
+        return new TimeWindows(earliest, latest, service, solved.shiftStart(), solved.shiftEnd());
+    }
+
+    private OptimizedRouteResponse.RouteResult newTrip(List<OptimizedRouteResponse.RouteResult> routes) {
+        OptimizedRouteResponse.RouteResult largest = routes.stream()
+                .max(Comparator.comparing(route -> route.getCapacity() == null ? 0 : route.getCapacity()))
+                .orElseThrow(() -> new RouteLogicException("The plan has no routes to repair"));
+        int trip = routes.stream()
+                .filter(route -> Objects.equals(route.getTruckId(), largest.getTruckId()) && route.getTrip() != null)
+                .mapToInt(OptimizedRouteResponse.RouteResult::getTrip)
+                .max()
+                .orElse(0) + 1;
+        return OptimizedRouteResponse.RouteResult.builder()
+                .truckId(largest.getTruckId())
+                .truckName(largest.getTruckName())
+                .trip(trip)
+                .capacity(largest.getCapacity())
+                .build();
+    }
+
+    // Matrices of the distance provider over the points of a repair
+    private TravelMatrices travelMatrices(List<Point> points) {
+        double[] lats = new double[points.size()];
+        double[] lngs = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            lats[i] = points.get(i).getLat();
+            lngs[i] = points.get(i).getLng();
+        }
+        return distanceProvider.matrices(lats, lngs);
+    }
+
+    // 2-opt and Or-opt from the repaired order on the nodes of the repair matrices, or relocations that keep
+    // the windows of the vehicle, with its schedule, when the plan has them
+    private OptimizedRouteResponse.RouteResult improveRoute(OptimizedRouteResponse.RouteResult route,
+        List<Point> points, List<Integer> stops, TravelMatrices matrices, Double load, TimeWindows windows,
+        int vehicle) {
+        int[] tour = new int[stops.size() + 2];
+        for (int i = 0; i < stops.size(); i++)
+            tour[i + 1] = stops.get(i);
+        DistanceMatrix matrix = matrices.distances();
+        double initialDistance = LocalSearch.tourLength(matrix, tour);
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(repairTimeLimitMs);
+        double[] starts = null;
+        if (windows == null) {
+            LocalSearch.improve(matrix, tour, deadlineNanos);
+        } else {
+            TimeWindowSearch.improve(matrix, matrices.minutes(), windows, vehicle, tour, deadlineNanos);
+            starts = TimeWindowSearch.startTimes(matrices.minutes(), windows, vehicle, tour);
+        }
+
+        List<Point> routePoints = new ArrayList<>(tour.length);
+        for (int node : tour)
+            routePoints.add(points.get(node));
+        return OptimizedRouteResponse.RouteResult.builder()
+                .truckId(route.getTruckId())
+                .truckName(route.getTruckName())
+                .points(routePoints)
+                .trip(route.getTrip())
+                .load(load)
+                .capacity(route.getCapacity())
+                .distance(round(LocalSearch.tourLength(matrix, tour)))
+                .initialDistance(round(initialDistance))
+                .estimatedTime(starts == null ? (int) Math.round(LocalSearch.tourLength(matrices.minutes(), tour))
+                        : scheduledMinutes(starts))
+                .scheduledTimes(starts == null ? null : toLocalTimes(starts))
+                .build();
+    }
+
+    private double round(double distance) {
+        return Math.round(distance * 100.0) / 100.0;
+    }
+
+    // Stops of a constructed route as nodes without the depot, with its truck and, for capacitated routes, trip and load
+    private record PlannedRoute(int[] nodes, TruckDto truck, Integer trip, Double load, Double capacity) {
     }
 
     @lombok.Data
     @lombok.Builder
     @lombok.NoArgsConstructor
     @lombok.AllArgsConstructor
-    private static class VRPSolution {
+    static class VRPSolution {
         private List<OptimizedRouteResponse.RouteResult> routes;
         private double totalDistance;
+        private double initialTotalDistance;
         private int estimatedTime;
         private int trucksUsed;
+        private List<String> unassignedContainerIds;
     }
 }
@@ -1,5 +1,11 @@
 package com.scgm.routes.service;
 
+import com.scgm.routes.solver.DistanceMatrix;
+import com.scgm.routes.solver.TourResult;
+
 public interface RouteOptimizationService {
-    
-}
\ No newline at end of file
+
+    // Orders the nodes of a single route that starts and ends at the depot, stopping the search at the deadline
+    public TourResult optimize(DistanceMatrix distanceMatrix, int depot, int[] nodes, long deadlineNanos);
+
+}
@@ -0,0 +1,73 @@
+package com.scgm.routes.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.scgm.routes.dto.OptimizedRouteResponse;
+import com.scgm.routes.dto.Point;
+import com.scgm.routes.dto.TruckDto;
+import com.scgm.routes.solver.TimeWindows;
+
+// Optimized plans kept by id so they can be repaired instead of solved again, least recently used
+// evicted first. Plans are replaced as a whole on every repair and never modified in place.
+@Component
+public class RoutePlanStore {
+
+    private final Map<String, RoutePlan> plans;
+
+    public RoutePlanStore(@Value("${scgm.routes.plans.cache-size:200}") int cacheSize) {
+        this.plans = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RoutePlan> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public void save(RoutePlan plan) {
+        plans.put(plan.id(), plan);
+    }
+
+    public Optional<RoutePlan> find(String planId) {
+        return Optional.ofNullable(plans.get(planId));
+    }
+
+    // The repair runs outside the lock on the plan read, and is only stored if that plan is still the
+    // current one; otherwise it runs again on the newer plan, so concurrent repairs never lose changes
+    public Optional<RoutePlan> update(String planId, UnaryOperator<RoutePlan> repair) {
+        while (true) {
+            RoutePlan current = plans.get(planId);
+            if (current == null)
+                return Optional.empty();
+            RoutePlan repaired = repair.apply(current);
+            synchronized (plans) {
+                RoutePlan latest = plans.get(planId);
+                if (latest == null)
+                    return Optional.empty();
+                if (latest == current) {
+                    plans.put(planId, repaired);
+                    return Optional.of(repaired);
+                }
+            }
+        }
+    }
+
+    // Windows are only kept for plans solved with time constraints, so their repairs keep them
+    public record RoutePlan(String id, Long customerId, Long cityId, String zoneId, Point depot,
+        OptimizedRouteResponse response, PlanWindows windows) {
+    }
+
+    // Windows of the solve: node i + 1 is the container containerIds[i] and vehicle v the truck trucks[v],
+    // kept even when it got no stops. Containers that were not solved take the whole day and the default
+    // service minutes.
+    public record PlanWindows(TimeWindows windows, List<String> containerIds, List<TruckDto> trucks,
+        double serviceMinutes) {
+    }
+}
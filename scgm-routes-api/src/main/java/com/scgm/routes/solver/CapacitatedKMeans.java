@@ -0,0 +1,185 @@
+package com.scgm.routes.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Cluster-first construction: k-means over the stop coordinates where a cluster never takes more demand
+// than one truck carries. Clusters are returned as node sequences without the depot and in no useful order,
+// the route improvement orders them.
+public final class CapacitatedKMeans {
+
+    private static final int MAX_ITERATIONS = 50;
+    // Clusters are sized for this share of the capacity, leaving room for the assignment to follow geography
+    private static final double FILL_TARGET = 0.9;
+    private static final double EPSILON = 1e-9;
+    private static final long SEED = 42;
+
+    private CapacitatedKMeans() {
+    }
+
+    // Node 0 is the depot and demand[node] the load of each stop. At least minClusters clusters are made
+    // (one per truck), more when the total demand needs them; a stop heavier than the capacity stays alone.
+    public static List<int[]> cluster(RoutingNodes nodes, double[] demand, double capacity, int minClusters,
+        ForkJoinPool pool) {
+        int size = nodes.stops();
+        if (size == 0)
+            return new ArrayList<>();
+        double totalDemand = 0;
+        for (int node = 1; node <= size; node++)
+            totalDemand += demand[node];
+        int k = (int) Math.min(size, Math.max(Math.max(1, minClusters), Math.ceil(totalDemand / (capacity * FILL_TARGET))));
+
+        // Equirectangular projection around the depot, accurate enough at the scale of a city
+        double cosLat = Math.cos(Math.toRadians(nodes.lat()[0]));
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = nodes.lng()[i + 1] * cosLat;
+            y[i] = nodes.lat()[i + 1];
+        }
+        while (true) {
+            int[] assignment = assign(x, y, demand, capacity, k, pool);
+            double[] loads = new double[k];
+            int[] counts = new int[k];
+            for (int i = 0; i < size; i++) {
+                loads[assignment[i]] += demand[i + 1];
+                counts[assignment[i]]++;
+            }
+            boolean fits = true;
+            for (int c = 0; c < k; c++)
+                fits &= loads[c] <= capacity + EPSILON || counts[c] <= 1;
+            if (fits || k == size)
+                return clusters(assignment, counts, k);
+            k++;
+        }
+    }
+
+    // Lloyd iterations where each assignment step fills the clusters by regret: the stops that lose the most
+    // by not going to their nearest center pick first, the others take the nearest center with room left
+    static int[] assign(double[] x, double[] y, double[] demand, double capacity, int k, ForkJoinPool pool) {
+        int size = x.length;
+        double[] centerX = new double[k];
+        double[] centerY = new double[k];
+        seedCenters(x, y, k, new Random(SEED), centerX, centerY);
+
+        float[] distances = new float[size * k];
+        int[] assignment = new int[size];
+        Arrays.fill(assignment, -1);
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            pool.submit(() -> IntStream.range(0, size).parallel().forEach(i -> {
+                for (int c = 0; c < k; c++) {
+                    double dx = x[i] - centerX[c];
+                    double dy = y[i] - centerY[c];
+                    distances[i * k + c] = (float) (dx * dx + dy * dy);
+                }
+            })).join();
+
+            // Regrets are non negative, so their float bits sort like the values
+            long[] byRegret = new long[size];
+            for (int i = 0; i < size; i++) {
+                float best = Float.MAX_VALUE;
+                float second = Float.MAX_VALUE;
+                for (int c = 0; c < k; c++) {
+                    float distance = distances[i * k + c];
+                    if (distance < best) {
+                        second = best;
+                        best = distance;
+                    } else if (distance < second) {
+                        second = distance;
+                    }
+                }
+                float regret = k == 1 ? 0 : second - best;
+                byRegret[i] = (long) Float.floatToIntBits(regret) << 32 | i;
+            }
+            Arrays.sort(byRegret);
+
+            int[] next = new int[size];
+            double[] loads = new double[k];
+            for (int r = size - 1; r >= 0; r--) {
+                int i = (int) byRegret[r];
+                int chosen = -1;
+                int emptiest = 0;
+                for (int c = 0; c < k; c++) {
+                    if (loads[c] + demand[i + 1] <= capacity + EPSILON
+                        && (chosen < 0 || distances[i * k + c] < distances[i * k + chosen]))
+                        chosen = c;
+                    if (loads[c] < loads[emptiest])
+                        emptiest = c;
+                }
+                next[i] = chosen >= 0 ? chosen : emptiest;
+                loads[next[i]] += demand[i + 1];
+            }
+            boolean changed = !Arrays.equals(next, assignment);
+            assignment = next;
+            if (!changed)
+                break;
+
+            double[] sumX = new double[k];
+            double[] sumY = new double[k];
+            int[] counts = new int[k];
+            for (int i = 0; i < size; i++) {
+                sumX[assignment[i]] += x[i];
+                sumY[assignment[i]] += y[i];
+                counts[assignment[i]]++;
+            }
+            // An empty cluster keeps its center
+            for (int c = 0; c < k; c++) {
+                if (counts[c] > 0) {
+                    centerX[c] = sumX[c] / counts[c];
+                    centerY[c] = sumY[c] / counts[c];
+                }
+            }
+        }
+        return assignment;
+    }
+
+    // k-means++: each next center is drawn with a probability proportional to its squared distance
+    // to the nearest center chosen so far
+    private static void seedCenters(double[] x, double[] y, int k, Random random, double[] centerX, double[] centerY) {
+        int size = x.length;
+        int first = random.nextInt(size);
+        centerX[0] = x[first];
+        centerY[0] = y[first];
+        double[] nearest = new double[size];
+        Arrays.fill(nearest, Double.MAX_VALUE);
+        for (int c = 1; c < k; c++) {
+            double total = 0;
+            for (int i = 0; i < size; i++) {
+                double dx = x[i] - centerX[c - 1];
+                double dy = y[i] - centerY[c - 1];
+                nearest[i] = Math.min(nearest[i], dx * dx + dy * dy);
+                total += nearest[i];
+            }
+            int chosen = size - 1;
+            double target = random.nextDouble() * total;
+            for (int i = 0; i < size; i++) {
+                target -= nearest[i];
+                if (target < 0) {
+                    chosen = i;
+                    break;
+                }
+            }
+            centerX[c] = x[chosen];
+            centerY[c] = y[chosen];
+        }
+    }
+
+    private static List<int[]> clusters(int[] assignment, int[] counts, int k) {
+        int[][] members = new int[k][];
+        for (int c = 0; c < k; c++)
+            members[c] = new int[counts[c]];
+        int[] filled = new int[k];
+        for (int i = 0; i < assignment.length; i++)
+            members[assignment[i]][filled[assignment[i]]++] = i + 1;
+        List<int[]> clusters = new ArrayList<>(k);
+        for (int[] cluster : members) {
+            if (cluster.length > 0)
+                clusters.add(cluster);
+        }
+        return clusters;
+    }
+}
@@ -0,0 +1,10 @@
+package com.scgm.routes.solver;
+
+// Distances in km between nodes identified by their index
+public interface DistanceMatrix {
+
+    int size();
+
+    double distance(int from, int to);
+
+}
@@ -0,0 +1,40 @@
+package com.scgm.routes.solver;
+
+import com.scgm.routes.util.GeoUtil;
+
+// Row major n x n matrix in a single primitive array
+public final class FullDistanceMatrix implements DistanceMatrix {
+
+    private final int size;
+    private final double[] distances;
+
+    public FullDistanceMatrix(int size, double[] distances) {
+        if (distances.length != size * size)
+            throw new IllegalArgumentException("distances must have size * size values");
+        this.size = size;
+        this.distances = distances;
+    }
+
+    public static FullDistanceMatrix haversine(double[] lats, double[] lngs) {
+        int size = lats.length;
+        double[] distances = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                double distance = GeoUtil.haversineKm(lats[i], lngs[i], lats[j], lngs[j]);
+                distances[i * size + j] = distance;
+                distances[j * size + i] = distance;
+            }
+        }
+        return new FullDistanceMatrix(size, distances);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double distance(int from, int to) {
+        return distances[from * size + to];
+    }
+}
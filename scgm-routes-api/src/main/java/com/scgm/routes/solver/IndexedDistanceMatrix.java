@@ -0,0 +1,23 @@
+package com.scgm.routes.solver;
+
+// View of another matrix through a node mapping, node i of the view is node nodes[i] of the base matrix
+public final class IndexedDistanceMatrix implements DistanceMatrix {
+
+    private final DistanceMatrix base;
+    private final int[] nodes;
+
+    public IndexedDistanceMatrix(DistanceMatrix base, int[] nodes) {
+        this.base = base;
+        this.nodes = nodes;
+    }
+
+    @Override
+    public int size() {
+        return nodes.length;
+    }
+
+    @Override
+    public double distance(int from, int to) {
+        return base.distance(nodes[from], nodes[to]);
+    }
+}
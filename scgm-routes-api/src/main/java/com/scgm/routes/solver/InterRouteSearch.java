@@ -0,0 +1,98 @@
+package com.scgm.routes.solver;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Moves between routes of a capacitated solution. Routes are node sequences without the depot.
+public final class InterRouteSearch {
+
+    private static final double EPSILON = 1e-9;
+
+    private InterRouteSearch() {
+    }
+
+    // Relocates single nodes to the cheapest position of another route with enough spare capacity,
+    // routes left empty are removed
+    public static boolean relocate(DistanceMatrix matrix, int depot, List<int[]> routes, double[] demand,
+        double capacity, long deadlineNanos) {
+        double[] loads = new double[routes.size()];
+        for (int r = 0; r < routes.size(); r++)
+            loads[r] = load(routes.get(r), demand);
+        boolean improved = false;
+        boolean improvedInPass = true;
+        while (improvedInPass && System.nanoTime() < deadlineNanos) {
+            improvedInPass = false;
+            for (int from = 0; from < routes.size(); from++) {
+                int[] source = routes.get(from);
+                for (int position = 0; position < source.length; position++) {
+                    int node = source[position];
+                    int before = position == 0 ? depot : source[position - 1];
+                    int after = position == source.length - 1 ? depot : source[position + 1];
+                    double removeGain = matrix.distance(before, node) + matrix.distance(node, after)
+                        - matrix.distance(before, after);
+                    int bestRoute = -1;
+                    int bestPosition = -1;
+                    double bestDelta = -EPSILON;
+                    for (int to = 0; to < routes.size(); to++) {
+                        if (to == from || loads[to] + demand[node] > capacity)
+                            continue;
+                        int[] target = routes.get(to);
+                        for (int p = 0; p <= target.length; p++) {
+                            int u = p == 0 ? depot : target[p - 1];
+                            int v = p == target.length ? depot : target[p];
+                            double delta = matrix.distance(u, node) + matrix.distance(node, v)
+                                - matrix.distance(u, v) - removeGain;
+                            if (delta < bestDelta) {
+                                bestDelta = delta;
+                                bestRoute = to;
+                                bestPosition = p;
+                            }
+                        }
+                    }
+                    if (bestRoute < 0)
+                        continue;
+                    routes.set(bestRoute, insert(routes.get(bestRoute), bestPosition, node));
+                    source = remove(source, position);
+                    routes.set(from, source);
+                    loads[bestRoute] += demand[node];
+                    loads[from] -= demand[node];
+                    position--;
+                    improved = true;
+                    improvedInPass = true;
+                }
+            }
+        }
+        routes.removeIf(route -> route.length == 0);
+        return improved;
+    }
+
+    public static double load(int[] route, double[] demand) {
+        double load = 0;
+        for (int node : route)
+            load += demand[node];
+        return load;
+    }
+
+    public static double routeLength(DistanceMatrix matrix, int depot, int[] route) {
+        if (route.length == 0)
+            return 0;
+        double length = matrix.distance(depot, route[0]) + matrix.distance(route[route.length - 1], depot);
+        for (int i = 0; i < route.length - 1; i++)
+            length += matrix.distance(route[i], route[i + 1]);
+        return length;
+    }
+
+    private static int[] insert(int[] route, int position, int node) {
+        int[] result = Arrays.copyOf(route, route.length + 1);
+        System.arraycopy(route, position, result, position + 1, route.length - position);
+        result[position] = node;
+        return result;
+    }
+
+    private static int[] remove(int[] route, int position) {
+        int[] result = new int[route.length - 1];
+        System.arraycopy(route, 0, result, 0, position);
+        System.arraycopy(route, position + 1, result, position, route.length - position - 1);
+        return result;
+    }
+}
@@ -0,0 +1,205 @@
+package com.scgm.routes.solver;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Single vehicle tour construction and improvement over a distance matrix.
+// A tour is an int[] of node indices that starts and ends at the depot.
+// The moves assume a symmetric matrix.
+public final class LocalSearch {
+
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_SEGMENT_LENGTH = 3;
+    // A randomized start picks each next node among the nearest candidates
+    private static final int RANDOM_CANDIDATES = 3;
+
+    private LocalSearch() {
+    }
+
+    public static TourResult solve(DistanceMatrix matrix, int depot, int[] nodes, long deadlineNanos) {
+        return solve(matrix, depot, nodes, deadlineNanos, null);
+    }
+
+    // Same as solve but seeded with a randomized nearest neighbour tour, random null means the plain one
+    public static TourResult solve(DistanceMatrix matrix, int depot, int[] nodes, long deadlineNanos, Random random) {
+        int[] tour = random == null ? nearestNeighbour(matrix, depot, nodes) : randomizedNearestNeighbour(matrix, depot, nodes, random);
+        double initialDistance = tourLength(matrix, tour);
+        improve(matrix, tour, deadlineNanos);
+        return new TourResult(Arrays.copyOfRange(tour, 1, tour.length - 1), initialDistance, tourLength(matrix, tour));
+    }
+
+    public static int[] nearestNeighbour(DistanceMatrix matrix, int depot, int[] nodes) {
+        int[] tour = new int[nodes.length + 2];
+        tour[0] = depot;
+        tour[tour.length - 1] = depot;
+        int[] remaining = nodes.clone();
+        int remainingCount = remaining.length;
+        int current = depot;
+        for (int position = 1; position <= nodes.length; position++) {
+            int best = 0;
+            double bestDistance = Double.MAX_VALUE;
+            for (int i = 0; i < remainingCount; i++) {
+                double distance = matrix.distance(current, remaining[i]);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = i;
+                }
+            }
+            current = remaining[best];
+            tour[position] = current;
+            remaining[best] = remaining[--remainingCount];
+        }
+        return tour;
+    }
+
+    public static int[] randomizedNearestNeighbour(DistanceMatrix matrix, int depot, int[] nodes, Random random) {
+        int[] tour = new int[nodes.length + 2];
+        tour[0] = depot;
+        tour[tour.length - 1] = depot;
+        int[] remaining = nodes.clone();
+        int remainingCount = remaining.length;
+        int[] candidates = new int[RANDOM_CANDIDATES];
+        double[] candidateDistances = new double[RANDOM_CANDIDATES];
+        int current = depot;
+        for (int position = 1; position <= nodes.length; position++) {
+            // Keeps the indices of the nearest remaining nodes sorted by distance
+            int candidateCount = 0;
+            for (int i = 0; i < remainingCount; i++) {
+                double distance = matrix.distance(current, remaining[i]);
+                if (candidateCount == RANDOM_CANDIDATES && distance >= candidateDistances[candidateCount - 1])
+                    continue;
+                int slot = Math.min(candidateCount, RANDOM_CANDIDATES - 1);
+                while (slot > 0 && candidateDistances[slot - 1] > distance) {
+                    candidates[slot] = candidates[slot - 1];
+                    candidateDistances[slot] = candidateDistances[slot - 1];
+                    slot--;
+                }
+                candidates[slot] = i;
+                candidateDistances[slot] = distance;
+                candidateCount = Math.min(candidateCount + 1, RANDOM_CANDIDATES);
+            }
+            int chosen = candidates[random.nextInt(candidateCount)];
+            current = remaining[chosen];
+            tour[position] = current;
+            remaining[chosen] = remaining[--remainingCount];
+        }
+        return tour;
+    }
+
+    public static double tourLength(DistanceMatrix matrix, int[] tour) {
+        double length = 0;
+        for (int i = 0; i < tour.length - 1; i++)
+            length += matrix.distance(tour[i], tour[i + 1]);
+        return length;
+    }
+
+    // Alternates 2-opt and Or-opt until neither improves or the deadline passes
+    public static boolean improve(DistanceMatrix matrix, int[] tour, long deadlineNanos) {
+        boolean improved = twoOpt(matrix, tour, deadlineNanos);
+        while (System.nanoTime() < deadlineNanos && orOpt(matrix, tour, deadlineNanos)) {
+            improved = true;
+            if (!twoOpt(matrix, tour, deadlineNanos))
+                break;
+        }
+        return improved;
+    }
+
+    public static boolean twoOpt(DistanceMatrix matrix, int[] tour, long deadlineNanos) {
+        int last = tour.length - 1;
+        boolean improved = false;
+        boolean improvedInPass = true;
+        while (improvedInPass) {
+            improvedInPass = false;
+            for (int i = 0; i <= last - 3; i++) {
+                if (System.nanoTime() > deadlineNanos)
+                    return improved;
+                int a = tour[i];
+                double ab = matrix.distance(a, tour[i + 1]);
+                for (int j = i + 2; j <= last - 1; j++) {
+                    int c = tour[j];
+                    int e = tour[j + 1];
+                    double delta = matrix.distance(a, c) + matrix.distance(tour[i + 1], e) - ab - matrix.distance(c, e);
+                    if (delta < -EPSILON) {
+                        reverse(tour, i + 1, j);
+                        ab = matrix.distance(a, tour[i + 1]);
+                        improved = true;
+                        improvedInPass = true;
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    // Moves segments of 1 to 3 consecutive nodes to their best position, in either orientation
+    public static boolean orOpt(DistanceMatrix matrix, int[] tour, long deadlineNanos) {
+        int last = tour.length - 1;
+        boolean improved = false;
+        boolean improvedInPass = true;
+        while (improvedInPass) {
+            improvedInPass = false;
+            for (int length = 1; length <= MAX_SEGMENT_LENGTH; length++) {
+                for (int start = 1; start + length - 1 <= last - 1; start++) {
+                    if (System.nanoTime() > deadlineNanos)
+                        return improved;
+                    int end = start + length - 1;
+                    int first = tour[start];
+                    int lastOfSegment = tour[end];
+                    double removeGain = matrix.distance(tour[start - 1], first) + matrix.distance(lastOfSegment, tour[end + 1])
+                        - matrix.distance(tour[start - 1], tour[end + 1]);
+                    int bestPosition = -1;
+                    boolean bestReversed = false;
+                    double bestDelta = -EPSILON;
+                    for (int p = 0; p < last; p++) {
+                        if (p >= start - 1 && p <= end)
+                            continue;
+                        int u = tour[p];
+                        int v = tour[p + 1];
+                        double uv = matrix.distance(u, v);
+                        double forward = matrix.distance(u, first) + matrix.distance(lastOfSegment, v) - uv - removeGain;
+                        double backward = matrix.distance(u, lastOfSegment) + matrix.distance(first, v) - uv - removeGain;
+                        if (forward < bestDelta) {
+                            bestDelta = forward;
+                            bestPosition = p;
+                            bestReversed = false;
+                        }
+                        if (backward < bestDelta) {
+                            bestDelta = backward;
+                            bestPosition = p;
+                            bestReversed = true;
+                        }
+                    }
+                    if (bestPosition >= 0) {
+                        moveSegment(tour, start, end, bestPosition, bestReversed);
+                        improved = true;
+                        improvedInPass = true;
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    // Moves tour[start..end] between the positions p and p + 1, p outside [start - 1, end]
+    static void moveSegment(int[] tour, int start, int end, int p, boolean reversed) {
+        int length = end - start + 1;
+        int[] segment = Arrays.copyOfRange(tour, start, end + 1);
+        if (reversed)
+            reverse(segment, 0, length - 1);
+        if (p < start) {
+            System.arraycopy(tour, p + 1, tour, p + 1 + length, start - 1 - p);
+            System.arraycopy(segment, 0, tour, p + 1, length);
+        } else {
+            System.arraycopy(tour, end + 1, tour, start, p - end);
+            System.arraycopy(segment, 0, tour, p - length + 1, length);
+        }
+    }
+
+    static void reverse(int[] values, int from, int to) {
+        while (from < to) {
+            int value = values[from];
+            values[from++] = values[to];
+            values[to--] = value;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.scgm.routes.solver;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.scgm.routes.util.GeoUtil;
+
+// Streams an OSM XML extract (nodes before ways, as exported by osmosis, osmium or the OSM API) into a
+// RoadGraph with the drivable ways only. Nodes not used by any of them are dropped and the rest renumbered.
+public final class OsmGraphReader {
+
+    // Typical urban speeds in km/h when a way has no usable maxspeed
+    private static final Map<String, Double> SPEEDS = Map.ofEntries(
+        Map.entry("motorway", 80.0), Map.entry("motorway_link", 45.0),
+        Map.entry("trunk", 60.0), Map.entry("trunk_link", 40.0),
+        Map.entry("primary", 50.0), Map.entry("primary_link", 35.0),
+        Map.entry("secondary", 40.0), Map.entry("secondary_link", 30.0),
+        Map.entry("tertiary", 35.0), Map.entry("tertiary_link", 30.0),
+        Map.entry("unclassified", 30.0), Map.entry("road", 30.0),
+        Map.entry("residential", 25.0), Map.entry("living_street", 10.0),
+        Map.entry("service", 15.0));
+
+    private long[] nodeIds = new long[1024];
+    private double[] nodeLats = new double[1024];
+    private double[] nodeLngs = new double[1024];
+    private int nodes;
+    private boolean sortedIds = true;
+    private int[] byId;
+
+    private int[] edgeFrom = new int[1024];
+    private int[] edgeTo = new int[1024];
+    private float[] edgeKm = new float[1024];
+    private float[] edgeMinutes = new float[1024];
+    private int edges;
+
+    private OsmGraphReader() {
+    }
+
+    public static RoadGraph read(InputStream in) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader xml = factory.createXMLStreamReader(in);
+        try {
+            OsmGraphReader reader = new OsmGraphReader();
+            reader.parse(xml);
+            return reader.build();
+        } finally {
+            xml.close();
+        }
+    }
+
+    private void parse(XMLStreamReader xml) throws XMLStreamException {
+        long[] wayNodes = new long[64];
+        int wayLength = 0;
+        String highway = null;
+        String oneway = null;
+        String junction = null;
+        String maxspeed = null;
+        String access = null;
+        boolean inWay = false;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (xml.getLocalName()) {
+                    case "node" -> addNode(Long.parseLong(xml.getAttributeValue(null, "id")),
+                        Double.parseDouble(xml.getAttributeValue(null, "lat")),
+                        Double.parseDouble(xml.getAttributeValue(null, "lon")));
+                    case "way" -> {
+                        inWay = true;
+                        wayLength = 0;
+                        highway = oneway = junction = maxspeed = access = null;
+                    }
+                    case "nd" -> {
+                        if (inWay) {
+                            if (wayLength == wayNodes.length)
+                                wayNodes = Arrays.copyOf(wayNodes, wayLength * 2);
+                            wayNodes[wayLength++] = Long.parseLong(xml.getAttributeValue(null, "ref"));
+                        }
+                    }
+                    case "tag" -> {
+                        if (inWay) {
+                            String value = xml.getAttributeValue(null, "v");
+                            switch (xml.getAttributeValue(null, "k")) {
+                                case "highway" -> highway = value;
+                                case "oneway" -> oneway = value;
+                                case "junction" -> junction = value;
+                                case "maxspeed" -> maxspeed = value;
+                                case "access", "motor_vehicle" -> access = value;
+                                default -> {
+                                }
+                            }
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && "way".equals(xml.getLocalName())) {
+                inWay = false;
+                if (highway != null && SPEEDS.containsKey(highway) && !"no".equals(access) && !"private".equals(access))
+                    addWay(wayNodes, wayLength, highway, oneway, junction, maxspeed);
+            }
+        }
+    }
+
+    private void addNode(long id, double lat, double lng) {
+        if (nodes == nodeIds.length) {
+            nodeIds = Arrays.copyOf(nodeIds, nodes * 2);
+            nodeLats = Arrays.copyOf(nodeLats, nodes * 2);
+            nodeLngs = Arrays.copyOf(nodeLngs, nodes * 2);
+        }
+        if (nodes > 0 && id <= nodeIds[nodes - 1])
+            sortedIds = false;
+        nodeIds[nodes] = id;
+        nodeLats[nodes] = lat;
+        nodeLngs[nodes] = lng;
+        nodes++;
+    }
+
+    private void addWay(long[] wayNodes, int wayLength, String highway, String oneway, String junction, String maxspeed) {
+        if (wayLength < 2)
+            return;
+        boolean forward = true;
+        boolean backward = true;
+        if ("yes".equals(oneway) || "true".equals(oneway) || "1".equals(oneway) || "roundabout".equals(junction)
+            || ("motorway".equals(highway) && !"no".equals(oneway)))
+            backward = false;
+        else if ("-1".equals(oneway) || "reverse".equals(oneway))
+            forward = false;
+        double speed = speed(maxspeed, SPEEDS.get(highway));
+
+        int previous = indexOf(wayNodes[0]);
+        for (int i = 1; i < wayLength; i++) {
+            int current = indexOf(wayNodes[i]);
+            if (previous >= 0 && current >= 0 && previous != current) {
+                double km = GeoUtil.haversineKm(nodeLats[previous], nodeLngs[previous], nodeLats[current], nodeLngs[current]);
+                double minutes = km / speed * 60;
+                if (forward)
+                    addEdge(previous, current, km, minutes);
+                if (backward)
+                    addEdge(current, previous, km, minutes);
+            }
+            previous = current;
+        }
+    }
+
+    private void addEdge(int from, int to, double km, double minutes) {
+        if (edges == edgeFrom.length) {
+            edgeFrom = Arrays.copyOf(edgeFrom, edges * 2);
+            edgeTo = Arrays.copyOf(edgeTo, edges * 2);
+            edgeKm = Arrays.copyOf(edgeKm, edges * 2);
+            edgeMinutes = Arrays.copyOf(edgeMinutes, edges * 2);
+        }
+        edgeFrom[edges] = from;
+        edgeTo[edges] = to;
+        edgeKm[edges] = (float) km;
+        edgeMinutes[edges] = (float) minutes;
+        edges++;
+    }
+
+    // Position of the node in the read order, -1 when the extract does not include it (ways cut at its border)
+    private int indexOf(long id) {
+        if (byId == null) {
+            byId = sortedIds
+                ? IntStream.range(0, nodes).toArray()
+                : IntStream.range(0, nodes).boxed()
+                    .sorted(Comparator.comparingLong(i -> nodeIds[i]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+        int low = 0;
+        int high = nodes - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = nodeIds[byId[mid]];
+            if (midId < id)
+                low = mid + 1;
+            else if (midId > id)
+                high = mid - 1;
+            else
+                return byId[mid];
+        }
+        return -1;
+    }
+
+    // Numeric maxspeed in km/h or mph, the highway default otherwise (none, signals, country codes...)
+    static double speed(String maxspeed, double defaultSpeed) {
+        if (maxspeed == null)
+            return defaultSpeed;
+        String value = maxspeed.trim();
+        int end = 0;
+        while (end < value.length() && Character.isDigit(value.charAt(end)))
+            end++;
+        if (end == 0 || end > 3)
+            return defaultSpeed;
+        double speed = Integer.parseInt(value.substring(0, end));
+        if (value.endsWith("mph"))
+            speed *= 1.609344;
+        return speed > 0 ? speed : defaultSpeed;
+    }
+
+    // Counting sort of the edges by tail into compressed rows, over the nodes that have any edge
+    private RoadGraph build() {
+        int[] newIndex = new int[nodes];
+        Arrays.fill(newIndex, -1);
+        int used = 0;
+        for (int e = 0; e < edges; e++) {
+            if (newIndex[edgeFrom[e]] < 0)
+                newIndex[edgeFrom[e]] = used++;
+            if (newIndex[edgeTo[e]] < 0)
+                newIndex[edgeTo[e]] = used++;
+        }
+        double[] lats = new double[used];
+        double[] lngs = new double[used];
+        for (int node = 0; node < nodes; node++) {
+            if (newIndex[node] >= 0) {
+                lats[newIndex[node]] = nodeLats[node];
+                lngs[newIndex[node]] = nodeLngs[node];
+            }
+        }
+        int[] firstEdge = new int[used + 1];
+        for (int e = 0; e < edges; e++)
+            firstEdge[newIndex[edgeFrom[e]] + 1]++;
+        for (int node = 0; node < used; node++)
+            firstEdge[node + 1] += firstEdge[node];
+        int[] next = Arrays.copyOf(firstEdge, used);
+        int[] head = new int[edges];
+        float[] lengthKm = new float[edges];
+        float[] minutes = new float[edges];
+        for (int e = 0; e < edges; e++) {
+            int position = next[newIndex[edgeFrom[e]]]++;
+            head[position] = newIndex[edgeTo[e]];
+            lengthKm[position] = edgeKm[e];
+            minutes[position] = edgeMinutes[e];
+        }
+        return new RoadGraph(lats, lngs, firstEdge, head, lengthKm, minutes);
+    }
+}
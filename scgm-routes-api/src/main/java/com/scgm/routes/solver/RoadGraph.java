@@ -0,0 +1,204 @@
+package com.scgm.routes.solver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.scgm.routes.util.GeoUtil;
+
+// Directed road network in compressed sparse rows: the edges leaving node u are firstEdge[u] until
+// firstEdge[u + 1], each with its head node, length in km and travel time in minutes
+public final class RoadGraph {
+
+    // About 550 m of latitude per cell of the nearest node lookup
+    private static final double CELL_SIZE = 0.005;
+
+    private final double[] lats;
+    private final double[] lngs;
+    private final int[] firstEdge;
+    private final int[] head;
+    private final float[] lengthKm;
+    private final float[] minutes;
+    private final Map<Long, int[]> cells = new HashMap<>();
+
+    public RoadGraph(double[] lats, double[] lngs, int[] firstEdge, int[] head, float[] lengthKm, float[] minutes) {
+        if (firstEdge.length != lats.length + 1 || head.length != firstEdge[lats.length])
+            throw new IllegalArgumentException("firstEdge must have one offset per node plus the edge count");
+        this.lats = lats;
+        this.lngs = lngs;
+        this.firstEdge = firstEdge;
+        this.head = head;
+        this.lengthKm = lengthKm;
+        this.minutes = minutes;
+
+        Map<Long, Integer> cellSizes = new HashMap<>();
+        for (int node = 0; node < lats.length; node++)
+            cellSizes.merge(cellKey(cell(lats[node]), cell(lngs[node])), 1, Integer::sum);
+        cellSizes.forEach((key, count) -> cells.put(key, new int[count]));
+        Map<Long, Integer> filled = new HashMap<>();
+        for (int node = 0; node < lats.length; node++) {
+            long key = cellKey(cell(lats[node]), cell(lngs[node]));
+            cells.get(key)[filled.merge(key, 1, Integer::sum) - 1] = node;
+        }
+    }
+
+    public int nodeCount() {
+        return lats.length;
+    }
+
+    public int edgeCount() {
+        return head.length;
+    }
+
+    public double lat(int node) {
+        return lats[node];
+    }
+
+    public double lng(int node) {
+        return lngs[node];
+    }
+
+    // Closest node by straight line, searching rings of cells until no closer node can be found; -1 if empty
+    public int nearestNode(double lat, double lng) {
+        int latCell = cell(lat);
+        int lngCell = cell(lng);
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        int maxRing = (int) Math.ceil(Math.sqrt(cells.size())) + 1;
+        double cellKm = CELL_SIZE * Math.toRadians(GeoUtil.EARTH_RADIUS_KM) * Math.cos(Math.toRadians(lat));
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int i = latCell - ring; i <= latCell + ring; i++) {
+                for (int j = lngCell - ring; j <= lngCell + ring; j++) {
+                    if (Math.abs(i - latCell) != ring && Math.abs(j - lngCell) != ring)
+                        continue;
+                    int[] cellNodes = cells.get(cellKey(i, j));
+                    if (cellNodes == null)
+                        continue;
+                    for (int node : cellNodes) {
+                        double distance = GeoUtil.haversineKm(lat, lng, lats[node], lngs[node]);
+                        if (distance < bestDistance) {
+                            bestDistance = distance;
+                            best = node;
+                        }
+                    }
+                }
+            }
+            // Nodes outside the searched rings are at least ring cells away
+            if (best >= 0 && bestDistance < ring * cellKm)
+                break;
+        }
+        return best;
+    }
+
+    // Reusable workspace of one thread, so a query only touches the nodes it reaches
+    public Search newSearch() {
+        return new Search();
+    }
+
+    private static int cell(double coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    private static long cellKey(int latCell, int lngCell) {
+        return ((long) latCell << 32) | (lngCell & 0xffffffffL);
+    }
+
+    public final class Search {
+
+        private final float[] time = new float[lats.length];
+        private final float[] length = new float[lats.length];
+        // A node is reached, settled or a target in the current query when its stamp equals the query stamp
+        private final int[] reachedStamp = new int[lats.length];
+        private final int[] settledStamp = new int[lats.length];
+        private final int[] targetStamp = new int[lats.length];
+        private long[] heap = new long[64];
+        private int stamp;
+
+        private Search() {
+        }
+
+        // Dijkstra on travel time from source until every target is settled. Writes the km and minutes
+        // of the fastest path to targets[i] at kmOut[i] and minutesOut[i], NaN when it is unreachable.
+        public void oneToMany(int source, int[] targets, double[] kmOut, double[] minutesOut) {
+            if (stamp == Integer.MAX_VALUE) {
+                Arrays.fill(reachedStamp, 0);
+                Arrays.fill(settledStamp, 0);
+                Arrays.fill(targetStamp, 0);
+                stamp = 0;
+            }
+            stamp++;
+            int remaining = 0;
+            for (int target : targets) {
+                if (targetStamp[target] != stamp) {
+                    targetStamp[target] = stamp;
+                    remaining++;
+                }
+            }
+            int heapSize = 0;
+            reachedStamp[source] = stamp;
+            time[source] = 0;
+            length[source] = 0;
+            heap[heapSize++] = (long) Float.floatToIntBits(0f) << 32 | source;
+            while (heapSize > 0 && remaining > 0) {
+                long top = heap[0];
+                heap[0] = heap[--heapSize];
+                siftDown(heapSize);
+                int node = (int) top;
+                if (settledStamp[node] == stamp)
+                    continue;
+                settledStamp[node] = stamp;
+                if (targetStamp[node] == stamp)
+                    remaining--;
+                for (int edge = firstEdge[node]; edge < firstEdge[node + 1]; edge++) {
+                    int next = head[edge];
+                    float nextTime = time[node] + minutes[edge];
+                    if (settledStamp[next] == stamp || (reachedStamp[next] == stamp && nextTime >= time[next]))
+                        continue;
+                    reachedStamp[next] = stamp;
+                    time[next] = nextTime;
+                    length[next] = length[node] + lengthKm[edge];
+                    if (heapSize == heap.length)
+                        heap = Arrays.copyOf(heap, heapSize * 2);
+                    heap[heapSize] = (long) Float.floatToIntBits(nextTime) << 32 | next;
+                    siftUp(heapSize++);
+                }
+            }
+            for (int i = 0; i < targets.length; i++) {
+                boolean settled = settledStamp[targets[i]] == stamp;
+                kmOut[i] = settled ? length[targets[i]] : Double.NaN;
+                minutesOut[i] = settled ? time[targets[i]] : Double.NaN;
+            }
+        }
+
+        private void siftUp(int index) {
+            long entry = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent] <= entry)
+                    break;
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = entry;
+        }
+
+        private void siftDown(int size) {
+            if (size == 0)
+                return;
+            long entry = heap[0];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size)
+                    break;
+                if (child + 1 < size && heap[child + 1] < heap[child])
+                    child++;
+                if (heap[child] >= entry)
+                    break;
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = entry;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.scgm.routes.solver;
+
+// Struct of arrays of the nodes of one solve: node 0 is the depot and node i + 1 the stop i.
+// The solver stages pass node indexes around instead of point objects.
+public record RoutingNodes(double[] lat, double[] lng, int[] priority) {
+
+    public RoutingNodes(int stops) {
+        this(new double[stops + 1], new double[stops + 1], new int[stops + 1]);
+    }
+
+    public int size() {
+        return lat.length;
+    }
+
+    public int stops() {
+        return lat.length - 1;
+    }
+}
@@ -0,0 +1,108 @@
+package com.scgm.routes.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Clarke-Wright parallel savings construction for a capacitated fleet.
+// Routes are returned as node sequences without the depot.
+public final class SavingsSolver {
+
+    // Every pair of stops takes a long, about 400 MB at this size
+    public static final int MAX_NODES = 10_000;
+
+    private SavingsSolver() {
+    }
+
+    public static List<int[]> solve(DistanceMatrix matrix, int depot, int[] nodes, double[] demand, double capacity) {
+        int size = matrix.size();
+        int[] routeOf = new int[size];
+        int[] first = new int[size];
+        int[] last = new int[size];
+        int[] next = new int[size];
+        int[] prev = new int[size];
+        double[] load = new double[size];
+        for (int node : nodes) {
+            routeOf[node] = node;
+            first[node] = node;
+            last[node] = node;
+            next[node] = -1;
+            prev[node] = -1;
+            load[node] = demand[node];
+        }
+
+        for (long entry : sortedSavings(matrix, depot, nodes)) {
+            int pair = (int) entry;
+            int i = nodes[pair / nodes.length];
+            int j = nodes[pair % nodes.length];
+            int routeI = routeOf[i];
+            int routeJ = routeOf[j];
+            if (routeI == routeJ || load[routeI] + load[routeJ] > capacity)
+                continue;
+            boolean iIsEnd = last[routeI] == i;
+            boolean jIsStart = first[routeJ] == j;
+            if ((!iIsEnd && first[routeI] != i) || (!jIsStart && last[routeJ] != j))
+                continue;
+            // Orient the routes as [... i] + [j ...]
+            if (!iIsEnd)
+                reverse(routeI, first, last, next, prev);
+            if (!jIsStart)
+                reverse(routeJ, first, last, next, prev);
+            next[i] = j;
+            prev[j] = i;
+            last[routeI] = last[routeJ];
+            load[routeI] += load[routeJ];
+            for (int node = j; node != -1; node = next[node])
+                routeOf[node] = routeI;
+        }
+
+        List<int[]> routes = new ArrayList<>();
+        for (int node : nodes) {
+            if (routeOf[node] != node)
+                continue;
+            int[] route = new int[nodes.length];
+            int length = 0;
+            for (int current = first[node]; current != -1; current = next[current])
+                route[length++] = current;
+            routes.add(Arrays.copyOf(route, length));
+        }
+        return routes;
+    }
+
+    // Positive savings d(0,i) + d(0,j) - d(i,j), sorted descending. Each entry packs the saving as
+    // a float in the high bits (positive floats order like ints) and the pair index in the low bits.
+    private static long[] sortedSavings(DistanceMatrix matrix, int depot, int[] nodes) {
+        int count = nodes.length;
+        if (count > MAX_NODES)
+            throw new IllegalArgumentException("Too many nodes for the savings construction: " + count);
+        long[] savings = new long[count * (count - 1) / 2];
+        int size = 0;
+        for (int a = 0; a < count; a++) {
+            double depotA = matrix.distance(depot, nodes[a]);
+            for (int b = a + 1; b < count; b++) {
+                double saving = depotA + matrix.distance(depot, nodes[b]) - matrix.distance(nodes[a], nodes[b]);
+                if (saving > 0)
+                    savings[size++] = ((long) Float.floatToIntBits((float) saving) << 32) | ((a * count + b) & 0xffffffffL);
+            }
+        }
+        long[] positive = Arrays.copyOf(savings, size);
+        Arrays.sort(positive);
+        for (int left = 0, right = positive.length - 1; left < right; left++, right--) {
+            long value = positive[left];
+            positive[left] = positive[right];
+            positive[right] = value;
+        }
+        return positive;
+    }
+
+    private static void reverse(int route, int[] first, int[] last, int[] next, int[] prev) {
+        for (int node = first[route]; node != -1; node = prev[node]) {
+            int value = next[node];
+            next[node] = prev[node];
+            prev[node] = value;
+        }
+        int value = first[route];
+        first[route] = last[route];
+        last[route] = value;
+    }
+}
@@ -0,0 +1,23 @@
+package com.scgm.routes.solver;
+
+// View of another matrix with every value multiplied by a factor, such as km into minutes at a constant speed
+public final class ScaledDistanceMatrix implements DistanceMatrix {
+
+    private final DistanceMatrix base;
+    private final double factor;
+
+    public ScaledDistanceMatrix(DistanceMatrix base, double factor) {
+        this.base = base;
+        this.factor = factor;
+    }
+
+    @Override
+    public int size() {
+        return base.size();
+    }
+
+    @Override
+    public double distance(int from, int to) {
+        return base.distance(from, to) * factor;
+    }
+}
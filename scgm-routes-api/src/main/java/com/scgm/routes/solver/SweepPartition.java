@@ -0,0 +1,41 @@
+package com.scgm.routes.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Sweep construction: stops ordered by their angle around the depot and cut into consecutive routes.
+// Routes are returned as node sequences without the depot.
+public final class SweepPartition {
+
+    private SweepPartition() {
+    }
+
+    // Angles are computed once and sorted as packed longs: the angle shifted to [0, 2pi] as float bits
+    // (ordered like the values, being non negative) in the high half and the node in the low half
+    public static int[] sweepOrder(RoutingNodes nodes) {
+        double depotLat = nodes.lat()[0];
+        double depotLng = nodes.lng()[0];
+        long[] keys = new long[nodes.stops()];
+        for (int node = 1; node < nodes.size(); node++) {
+            float angle = (float) (Math.atan2(nodes.lat()[node] - depotLat, nodes.lng()[node] - depotLng) + Math.PI);
+            keys[node - 1] = (long) Float.floatToIntBits(angle) << 32 | node;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            order[i] = (int) keys[i];
+        return order;
+    }
+
+    // At most maxRoutes routes of the same number of stops, the last one takes the remainder
+    public static List<int[]> partition(int[] order, int maxRoutes) {
+        List<int[]> routes = new ArrayList<>(maxRoutes);
+        if (order.length == 0 || maxRoutes <= 0)
+            return routes;
+        int perRoute = (order.length + maxRoutes - 1) / maxRoutes;
+        for (int start = 0; start < order.length && routes.size() < maxRoutes; start += perRoute)
+            routes.add(Arrays.copyOfRange(order, start, Math.min(start + perRoute, order.length)));
+        return routes;
+    }
+}
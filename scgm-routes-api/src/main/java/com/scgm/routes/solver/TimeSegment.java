@@ -0,0 +1,27 @@
+package com.scgm.routes.solver;
+
+// Schedule summary of a sequence of visits, from its first to its last node: minimum duration (service,
+// travel and waiting), earliest and latest start that reach that duration, and total lateness, zero when
+// every window is met. Sequences are joined in O(1), so the prefixes and suffixes of a route give the
+// feasibility of a move without walking the whole route (Kindervater and Savelsbergh concatenation).
+public record TimeSegment(int first, int last, double duration, double earliest, double latest, double lateness) {
+
+    private static final double EPSILON = 1e-6;
+
+    public TimeSegment then(TimeSegment next, DistanceMatrix minutes) {
+        double travel = minutes.distance(last, next.first);
+        // From the start of this segment to the arrival at the next one
+        double reach = duration - lateness + travel;
+        double waiting = Math.max(next.earliest - reach - latest, 0);
+        double late = Math.max(earliest + reach - next.latest, 0);
+        return new TimeSegment(first, next.last,
+            duration + next.duration + travel + waiting,
+            Math.max(next.earliest - reach, earliest) - waiting,
+            Math.min(next.latest - reach, latest) + late,
+            lateness + next.lateness + late);
+    }
+
+    public boolean feasible() {
+        return lateness <= EPSILON;
+    }
+}
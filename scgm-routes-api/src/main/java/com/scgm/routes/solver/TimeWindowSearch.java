@@ -0,0 +1,182 @@
+package com.scgm.routes.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Routes with time windows and one shift per vehicle. Every route keeps the schedule summaries of its
+// prefixes and suffixes (the forward and backward slacks), so an insertion or a relocation is checked by
+// joining at most four segments instead of replaying the schedule of the route.
+public final class TimeWindowSearch {
+
+    private static final double EPSILON = 1e-9;
+
+    private TimeWindowSearch() {
+    }
+
+    // Cheapest feasible insertion, tightest windows first, with one route per vehicle of windows.shiftStart().
+    // Routes are node sequences without the depot, index v for vehicle v. Stops that fit no route on time or
+    // within capacity are left out and can be found as the nodes missing from every route.
+    public static List<int[]> insert(DistanceMatrix distances, DistanceMatrix minutes, TimeWindows windows,
+        double[] demand, double[] capacities, int[] nodes) {
+        List<int[]> empty = new ArrayList<>(capacities.length);
+        for (int v = 0; v < capacities.length; v++)
+            empty.add(new int[0]);
+        return insert(distances, minutes, windows, demand, capacities, empty, nodes);
+    }
+
+    // The same insertion into routes already planned, one per vehicle, that meet their windows and capacities.
+    // The returned routes keep the order of the planned stops with the inserted nodes between them.
+    public static List<int[]> insert(DistanceMatrix distances, DistanceMatrix minutes, TimeWindows windows,
+        double[] demand, double[] capacities, List<int[]> planned, int[] nodes) {
+        int vehicles = capacities.length;
+        int[][] tours = new int[vehicles][];
+        int[] lengths = new int[vehicles];
+        double[] loads = new double[vehicles];
+        TimeSegment[][] prefixes = new TimeSegment[vehicles][];
+        TimeSegment[][] suffixes = new TimeSegment[vehicles][];
+        for (int v = 0; v < vehicles; v++) {
+            int[] stops = planned.get(v);
+            tours[v] = new int[stops.length + Math.min(nodes.length, 16) + 2];
+            System.arraycopy(stops, 0, tours[v], 1, stops.length);
+            lengths[v] = stops.length + 2;
+            for (int node : stops)
+                loads[v] += demand[node];
+            prefixes[v] = new TimeSegment[tours[v].length];
+            suffixes[v] = new TimeSegment[tours[v].length];
+            schedule(minutes, windows, v, tours[v], lengths[v], prefixes[v], suffixes[v]);
+        }
+
+        // Latest window ends first, packed as in the sweep since the windows are non negative minutes
+        long[] order = new long[nodes.length];
+        for (int i = 0; i < nodes.length; i++)
+            order[i] = (long) Float.floatToIntBits((float) windows.latest()[nodes[i]]) << 32 | i;
+        Arrays.sort(order);
+
+        for (long packed : order) {
+            int node = nodes[(int) packed];
+            TimeSegment visit = windows.node(node);
+            int bestVehicle = -1;
+            int bestPosition = -1;
+            double bestDelta = Double.MAX_VALUE;
+            for (int v = 0; v < vehicles; v++) {
+                if (loads[v] + demand[node] > capacities[v] + EPSILON)
+                    continue;
+                int[] tour = tours[v];
+                for (int p = 0; p < lengths[v] - 1; p++) {
+                    double delta = distances.distance(tour[p], node) + distances.distance(node, tour[p + 1])
+                        - distances.distance(tour[p], tour[p + 1]);
+                    if (delta < bestDelta
+                        && prefixes[v][p].then(visit, minutes).then(suffixes[v][p + 1], minutes).feasible()) {
+                        bestDelta = delta;
+                        bestVehicle = v;
+                        bestPosition = p + 1;
+                    }
+                }
+            }
+            if (bestVehicle < 0)
+                continue;
+
+            int v = bestVehicle;
+            if (lengths[v] == tours[v].length) {
+                tours[v] = Arrays.copyOf(tours[v], lengths[v] * 2);
+                prefixes[v] = new TimeSegment[tours[v].length];
+                suffixes[v] = new TimeSegment[tours[v].length];
+            }
+            System.arraycopy(tours[v], bestPosition, tours[v], bestPosition + 1, lengths[v] - bestPosition);
+            tours[v][bestPosition] = node;
+            lengths[v]++;
+            loads[v] += demand[node];
+            schedule(minutes, windows, v, tours[v], lengths[v], prefixes[v], suffixes[v]);
+        }
+
+        List<int[]> routes = new ArrayList<>(vehicles);
+        for (int v = 0; v < vehicles; v++)
+            routes.add(Arrays.copyOfRange(tours[v], 1, lengths[v] - 1));
+        return routes;
+    }
+
+    // First improvement relocation of single stops within the tour of the vehicle, a tour that starts and
+    // ends at the depot and meets its windows. The stops between the old and the new position form the
+    // middle segment, grown by one stop per candidate, so every candidate costs O(1).
+    public static boolean improve(DistanceMatrix distances, DistanceMatrix minutes, TimeWindows windows, int vehicle,
+        int[] tour, long deadlineNanos) {
+        int length = tour.length;
+        TimeSegment[] prefixes = new TimeSegment[length];
+        TimeSegment[] suffixes = new TimeSegment[length];
+        boolean improvedAny = false;
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadlineNanos) {
+            improved = false;
+            schedule(minutes, windows, vehicle, tour, length, prefixes, suffixes);
+            search:
+            for (int k = 1; k < length - 1; k++) {
+                int node = tour[k];
+                TimeSegment visit = windows.node(node);
+                double gain = distances.distance(tour[k - 1], node) + distances.distance(node, tour[k + 1])
+                    - distances.distance(tour[k - 1], tour[k + 1]);
+
+                // Later: prefix up to k - 1, the stops k + 1..j, the node, the suffix from j + 1
+                TimeSegment middle = null;
+                for (int j = k + 1; j < length - 1; j++) {
+                    TimeSegment next = windows.node(tour[j]);
+                    middle = middle == null ? next : middle.then(next, minutes);
+                    double delta = distances.distance(tour[j], node) + distances.distance(node, tour[j + 1])
+                        - distances.distance(tour[j], tour[j + 1]) - gain;
+                    if (delta < -EPSILON && prefixes[k - 1].then(middle, minutes).then(visit, minutes)
+                        .then(suffixes[j + 1], minutes).feasible()) {
+                        System.arraycopy(tour, k + 1, tour, k, j - k);
+                        tour[j] = node;
+                        improved = true;
+                        break search;
+                    }
+                }
+
+                // Earlier: prefix up to j - 1, the node, the stops j..k - 1, the suffix from k + 1
+                middle = null;
+                for (int j = k - 1; j >= 1; j--) {
+                    TimeSegment previous = windows.node(tour[j]);
+                    middle = middle == null ? previous : previous.then(middle, minutes);
+                    double delta = distances.distance(tour[j - 1], node) + distances.distance(node, tour[j])
+                        - distances.distance(tour[j - 1], tour[j]) - gain;
+                    if (delta < -EPSILON && prefixes[j - 1].then(visit, minutes).then(middle, minutes)
+                        .then(suffixes[k + 1], minutes).feasible()) {
+                        System.arraycopy(tour, j, tour, j + 1, k - j);
+                        tour[j] = node;
+                        improved = true;
+                        break search;
+                    }
+                }
+            }
+            improvedAny |= improved;
+        }
+        return improvedAny;
+    }
+
+    // Start of the service at each position of a feasible tour when leaving the depot as early as possible
+    // without waiting on the way longer than needed; the last value is the return to the depot
+    public static double[] startTimes(DistanceMatrix minutes, TimeWindows windows, int vehicle, int[] tour) {
+        TimeSegment[] prefixes = new TimeSegment[tour.length];
+        TimeSegment[] suffixes = new TimeSegment[tour.length];
+        schedule(minutes, windows, vehicle, tour, tour.length, prefixes, suffixes);
+        double[] starts = new double[tour.length];
+        starts[0] = suffixes[0].earliest();
+        for (int p = 1; p < tour.length; p++) {
+            double arrival = starts[p - 1] + windows.service()[tour[p - 1]] + minutes.distance(tour[p - 1], tour[p]);
+            double earliest = p == tour.length - 1 ? windows.shiftStart()[vehicle] : windows.earliest()[tour[p]];
+            starts[p] = Math.max(arrival, earliest);
+        }
+        return starts;
+    }
+
+    // Forward and backward summaries of the first length positions of the tour, the depot ends take the shift
+    private static void schedule(DistanceMatrix minutes, TimeWindows windows, int vehicle, int[] tour, int length,
+        TimeSegment[] prefixes, TimeSegment[] suffixes) {
+        prefixes[0] = windows.depot(vehicle);
+        for (int p = 1; p < length; p++)
+            prefixes[p] = prefixes[p - 1].then(p == length - 1 ? windows.depot(vehicle) : windows.node(tour[p]), minutes);
+        suffixes[length - 1] = windows.depot(vehicle);
+        for (int p = length - 2; p >= 0; p--)
+            suffixes[p] = (p == 0 ? windows.depot(vehicle) : windows.node(tour[p])).then(suffixes[p + 1], minutes);
+    }
+}
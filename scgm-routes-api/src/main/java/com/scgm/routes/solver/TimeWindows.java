@@ -0,0 +1,15 @@
+package com.scgm.routes.solver;
+
+// Times in minutes of the day. Node i can only be started between earliest[i] and latest[i] and takes
+// service[i] minutes; vehicle v leaves the depot (node 0) and is back within shiftStart[v] and shiftEnd[v].
+public record TimeWindows(double[] earliest, double[] latest, double[] service, double[] shiftStart,
+    double[] shiftEnd) {
+
+    public TimeSegment node(int node) {
+        return new TimeSegment(node, node, service[node], earliest[node], latest[node], 0);
+    }
+
+    public TimeSegment depot(int vehicle) {
+        return new TimeSegment(0, 0, 0, shiftStart[vehicle], shiftEnd[vehicle], 0);
+    }
+}
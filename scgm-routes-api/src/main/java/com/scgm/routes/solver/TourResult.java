@@ -0,0 +1,9 @@
+package com.scgm.routes.solver;
+
+// order holds the visited nodes without the depot, distances are in km
+public record TourResult(int[] order, double initialDistance, double distance) {
+
+    public double improvement() {
+        return initialDistance - distance;
+    }
+}
@@ -0,0 +1,10 @@
+package com.scgm.routes.solver;
+
+// Distances in km and travel times in minutes over the same nodes
+public record TravelMatrices(DistanceMatrix distances, DistanceMatrix minutes) {
+
+    // Node i of the result is node nodes[i] of these matrices
+    public TravelMatrices indexed(int[] nodes) {
+        return new TravelMatrices(new IndexedDistanceMatrix(distances, nodes), new IndexedDistanceMatrix(minutes, nodes));
+    }
+}
@@ -0,0 +1,84 @@
+package com.scgm.routes.solver;
+
+import com.scgm.routes.util.GeoUtil;
+
+// Symmetric matrix keeping only the pairs i < j as floats, a quarter of the memory of a full double matrix
+public final class TriangularDistanceMatrix implements DistanceMatrix {
+
+    private final int size;
+    // rowOffsets[i] + j is the position of the pair (i, j) with i < j
+    private final int[] rowOffsets;
+    private final float[] distances;
+
+    private TriangularDistanceMatrix(int size) {
+        if ((long) size * (size - 1) / 2 > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Too many nodes for a distance matrix: " + size);
+        this.size = size;
+        this.rowOffsets = new int[size];
+        for (int i = 1; i < size; i++)
+            rowOffsets[i] = rowOffsets[i - 1] + size - i;
+        for (int i = 0; i < size; i++)
+            rowOffsets[i] -= i + 1;
+        this.distances = new float[size * (size - 1) / 2];
+    }
+
+    // Haversine with the radians and cos(lat) of every point computed once instead of once per pair
+    public static TriangularDistanceMatrix haversine(double[] lats, double[] lngs) {
+        int size = lats.length;
+        double[] latRadians = new double[size];
+        double[] lngRadians = new double[size];
+        double[] cosLats = new double[size];
+        for (int i = 0; i < size; i++) {
+            latRadians[i] = Math.toRadians(lats[i]);
+            lngRadians[i] = Math.toRadians(lngs[i]);
+            cosLats[i] = Math.cos(latRadians[i]);
+        }
+        TriangularDistanceMatrix matrix = new TriangularDistanceMatrix(size);
+        for (int i = 0; i < size; i++) {
+            int offset = matrix.rowOffsets[i];
+            for (int j = i + 1; j < size; j++) {
+                double sinLat = Math.sin((latRadians[j] - latRadians[i]) / 2);
+                double sinLng = Math.sin((lngRadians[j] - lngRadians[i]) / 2);
+                double a = sinLat * sinLat + cosLats[i] * cosLats[j] * sinLng * sinLng;
+                matrix.distances[offset + j] = (float) (2 * GeoUtil.EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1, a))));
+            }
+        }
+        return matrix;
+    }
+
+    public static TriangularDistanceMatrix empty(int size) {
+        return new TriangularDistanceMatrix(size);
+    }
+
+    // Each pair is a single position, concurrent writers are safe as long as they set different pairs
+    public void set(int from, int to, double distance) {
+        if (from < to)
+            distances[rowOffsets[from] + to] = (float) distance;
+        else if (from > to)
+            distances[rowOffsets[to] + from] = (float) distance;
+    }
+
+    // Symmetric version of an asymmetric matrix given as its two halves: forward holds from -> to and
+    // backward to -> from for every pair from < to. Both ways are averaged into forward, which is returned.
+    public static TriangularDistanceMatrix average(TriangularDistanceMatrix forward, TriangularDistanceMatrix backward) {
+        if (forward.size != backward.size)
+            throw new IllegalArgumentException("Both halves must have the same size");
+        for (int i = 0; i < forward.distances.length; i++)
+            forward.distances[i] = (forward.distances[i] + backward.distances[i]) / 2;
+        return forward;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double distance(int from, int to) {
+        if (from < to)
+            return distances[rowOffsets[from] + to];
+        if (from > to)
+            return distances[rowOffsets[to] + from];
+        return 0;
+    }
+}
@@ -0,0 +1,38 @@
+package com.scgm.routes.solver;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+// Assigns routes to trucks, a truck can run several routes as consecutive trips
+public final class TripAssignment {
+
+    private TripAssignment() {
+    }
+
+    // Heaviest routes first, each one to the truck that fits its load and has the least distance so far.
+    // A route heavier than every truck goes to the largest one. Returns the truck index of each route.
+    public static int[] assign(double[] routeLoads, double[] routeDistances, double[] truckCapacities) {
+        int[] truckOfRoute = new int[routeLoads.length];
+        double[] assignedDistance = new double[truckCapacities.length];
+        int largest = 0;
+        for (int t = 1; t < truckCapacities.length; t++) {
+            if (truckCapacities[t] > truckCapacities[largest])
+                largest = t;
+        }
+        Integer[] byLoad = IntStream.range(0, routeLoads.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(byLoad, Comparator.comparingDouble((Integer r) -> routeLoads[r]).reversed());
+        for (int route : byLoad) {
+            int best = -1;
+            for (int t = 0; t < truckCapacities.length; t++) {
+                if (truckCapacities[t] >= routeLoads[route] && (best < 0 || assignedDistance[t] < assignedDistance[best]))
+                    best = t;
+            }
+            if (best < 0)
+                best = largest;
+            truckOfRoute[route] = best;
+            assignedDistance[best] += routeDistances[route];
+        }
+        return truckOfRoute;
+    }
+}
@@ -0,0 +1,78 @@
+package com.scgm.routes.solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class CapacitatedKMeansTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(2);
+
+    @Test
+    void cluster_PutsEveryStopInOneClusterWithinCapacity() {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 20; trial++) {
+            int stops = 1 + random.nextInt(300);
+            RoutingNodes nodes = randomNodes(random, stops);
+            double[] demand = new double[stops + 1];
+            for (int node = 1; node <= stops; node++)
+                demand[node] = random.nextDouble() * 0.1;
+            double capacity = 0.5 + random.nextDouble() * 2;
+            int trucks = 1 + random.nextInt(5);
+
+            List<int[]> clusters = CapacitatedKMeans.cluster(nodes, demand, capacity, trucks, POOL);
+            boolean[] seen = new boolean[stops + 1];
+            int visited = 0;
+            for (int[] cluster : clusters) {
+                double load = 0;
+                for (int node : cluster) {
+                    assertTrue(node >= 1 && node <= stops && !seen[node]);
+                    seen[node] = true;
+                    load += demand[node];
+                    visited++;
+                }
+                assertTrue(load <= capacity + 1e-9);
+            }
+            assertEquals(stops, visited);
+            assertTrue(clusters.size() >= Math.min(stops, trucks));
+        }
+    }
+
+    @Test
+    void cluster_SeparatesDistantGroups() {
+        // Two groups of ten stops, one north and one south of the depot
+        RoutingNodes nodes = new RoutingNodes(20);
+        nodes.lat()[0] = 4.65;
+        nodes.lng()[0] = -74.10;
+        Random random = new Random(7);
+        for (int node = 1; node <= 20; node++) {
+            nodes.lat()[node] = (node <= 10 ? 4.75 : 4.55) + random.nextDouble() * 0.01;
+            nodes.lng()[node] = -74.10 + random.nextDouble() * 0.01;
+        }
+        double[] demand = new double[21];
+        for (int node = 1; node <= 20; node++)
+            demand[node] = 0.1;
+
+        List<int[]> clusters = CapacitatedKMeans.cluster(nodes, demand, 1.5, 2, POOL);
+        assertEquals(2, clusters.size());
+        for (int[] cluster : clusters) {
+            boolean north = cluster[0] <= 10;
+            for (int node : cluster)
+                assertEquals(north, node <= 10);
+        }
+    }
+
+    private static RoutingNodes randomNodes(Random random, int stops) {
+        RoutingNodes nodes = new RoutingNodes(stops);
+        for (int node = 0; node <= stops; node++) {
+            nodes.lat()[node] = 4.5 + random.nextDouble() * 0.3;
+            nodes.lng()[node] = -74.2 + random.nextDouble() * 0.2;
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,112 @@
+package com.scgm.routes.solver;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class LocalSearchTest {
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void solve_VisitsEveryNodeOnceAndNeverWorsensTheSeed() {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 50; trial++) {
+            int size = 2 + random.nextInt(80);
+            DistanceMatrix matrix = randomMatrix(random, size);
+            int[] nodes = nodes(size);
+
+            TourResult result = LocalSearch.solve(matrix, 0, nodes, System.nanoTime() + ONE_SECOND);
+
+            int[] visited = result.order().clone();
+            Arrays.sort(visited);
+            assertArrayEquals(nodes, visited);
+            assertTrue(result.distance() <= result.initialDistance() + 1e-9);
+            assertEquals(LocalSearch.tourLength(matrix, withDepot(result.order())), result.distance(), 1e-9);
+        }
+    }
+
+    @Test
+    void solve_RandomizedStartsVisitEveryNodeOnce() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 50; trial++) {
+            int size = 2 + random.nextInt(80);
+            DistanceMatrix matrix = randomMatrix(random, size);
+            int[] nodes = nodes(size);
+
+            TourResult result = LocalSearch.solve(matrix, 0, nodes, System.nanoTime() + ONE_SECOND, new Random(trial));
+
+            int[] visited = result.order().clone();
+            Arrays.sort(visited);
+            assertArrayEquals(nodes, visited);
+            assertTrue(result.distance() <= result.initialDistance() + 1e-9);
+        }
+    }
+
+    @Test
+    void solve_UntanglesPointsOnACircle() {
+        int size = 41;
+        double[] lats = new double[size];
+        double[] lngs = new double[size];
+        Random random = new Random(7);
+        for (int i = 1; i < size; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            lats[i] = 4.6 + 0.05 * Math.sin(angle);
+            lngs[i] = -74.1 + 0.05 * Math.cos(angle);
+        }
+        lats[0] = 4.65;
+        lngs[0] = -74.1;
+        DistanceMatrix matrix = FullDistanceMatrix.haversine(lats, lngs);
+
+        TourResult result = LocalSearch.solve(matrix, 0, nodes(size), System.nanoTime() + ONE_SECOND);
+
+        // Visiting the points by angle is optimal, the tour must be close to it
+        Integer[] byAngle = new Integer[size - 1];
+        for (int i = 0; i < size - 1; i++)
+            byAngle[i] = i + 1;
+        Arrays.sort(byAngle, (a, b) -> Double.compare(Math.atan2(lats[a] - 4.6, lngs[a] + 74.1),
+            Math.atan2(lats[b] - 4.6, lngs[b] + 74.1)));
+        int[] reference = Arrays.stream(byAngle).mapToInt(Integer::intValue).toArray();
+        double referenceDistance = LocalSearch.tourLength(matrix, withDepot(reference));
+        assertTrue(result.distance() <= referenceDistance * 1.05);
+    }
+
+    @Test
+    void moveSegment_MovesForwardAndBackwardKeepingTheOtherNodes() {
+        int[] tour = {0, 1, 2, 3, 4, 5, 6, 0};
+        LocalSearch.moveSegment(tour, 2, 3, 5, false);
+        assertArrayEquals(new int[] {0, 1, 4, 5, 2, 3, 6, 0}, tour);
+
+        LocalSearch.moveSegment(tour, 4, 5, 0, true);
+        assertArrayEquals(new int[] {0, 3, 2, 1, 4, 5, 6, 0}, tour);
+    }
+
+    private static DistanceMatrix randomMatrix(Random random, int size) {
+        double[] lats = new double[size];
+        double[] lngs = new double[size];
+        for (int i = 0; i < size; i++) {
+            lats[i] = 4.5 + random.nextDouble() * 0.2;
+            lngs[i] = -74.2 + random.nextDouble() * 0.2;
+        }
+        return FullDistanceMatrix.haversine(lats, lngs);
+    }
+
+    private static int[] nodes(int size) {
+        int[] nodes = new int[size - 1];
+        for (int i = 0; i < nodes.length; i++)
+            nodes[i] = i + 1;
+        return nodes;
+    }
+
+    private static int[] withDepot(int[] order) {
+        int[] tour = new int[order.length + 2];
+        System.arraycopy(order, 0, tour, 1, order.length);
+        return tour;
+    }
+}
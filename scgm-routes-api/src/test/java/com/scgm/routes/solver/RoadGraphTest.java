@@ -0,0 +1,103 @@
+package com.scgm.routes.solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.scgm.routes.util.GeoUtil;
+
+class RoadGraphTest {
+
+    // A square a-b-c-d with a one-way street a -> c on the diagonal, a footway and an isolated street e-f
+    private static final String OSM = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <osm version="0.6">
+          <node id="1" lat="4.600" lon="-74.100"/>
+          <node id="2" lat="4.600" lon="-74.090"/>
+          <node id="3" lat="4.610" lon="-74.090"/>
+          <node id="4" lat="4.610" lon="-74.100"/>
+          <node id="5" lat="4.700" lon="-74.000"/>
+          <node id="6" lat="4.701" lon="-74.000"/>
+          <node id="7" lat="4.650" lon="-74.050"/>
+          <way id="10">
+            <nd ref="1"/><nd ref="2"/><nd ref="3"/><nd ref="4"/><nd ref="1"/>
+            <tag k="highway" v="residential"/>
+          </way>
+          <way id="11">
+            <nd ref="1"/><nd ref="3"/>
+            <tag k="highway" v="primary"/>
+            <tag k="oneway" v="yes"/>
+            <tag k="maxspeed" v="60"/>
+          </way>
+          <way id="12">
+            <nd ref="5"/><nd ref="6"/>
+            <tag k="highway" v="residential"/>
+          </way>
+          <way id="13">
+            <nd ref="2"/><nd ref="7"/>
+            <tag k="highway" v="footway"/>
+          </way>
+        </osm>
+        """;
+
+    @Test
+    void read_KeepsDrivableWaysWithTheirDirections() throws Exception {
+        RoadGraph graph = read();
+        // Footway and its only node are dropped
+        assertEquals(6, graph.nodeCount());
+        // Square both ways, the diagonal one way, the isolated street both ways
+        assertEquals(8 + 1 + 2, graph.edgeCount());
+    }
+
+    @Test
+    void oneToMany_TakesTheOneWayStreetOnlyInItsDirection() throws Exception {
+        RoadGraph graph = read();
+        int a = graph.nearestNode(4.600, -74.100);
+        int b = graph.nearestNode(4.600, -74.090);
+        int c = graph.nearestNode(4.610, -74.090);
+        double side = GeoUtil.haversineKm(4.600, -74.100, 4.600, -74.090);
+        double diagonal = GeoUtil.haversineKm(4.600, -74.100, 4.610, -74.090);
+
+        double[] km = new double[2];
+        double[] minutes = new double[2];
+        RoadGraph.Search search = graph.newSearch();
+        search.oneToMany(a, new int[] {c, b}, km, minutes);
+        assertEquals(diagonal, km[0], 1e-3);
+        assertEquals(diagonal / 60 * 60, minutes[0], 1e-3);
+        assertEquals(side, km[1], 1e-3);
+
+        search.oneToMany(c, new int[] {a}, km, minutes);
+        assertTrue(km[0] > diagonal + 0.5);
+    }
+
+    @Test
+    void oneToMany_LeavesUnconnectedTargetsAsNaN() throws Exception {
+        RoadGraph graph = read();
+        int a = graph.nearestNode(4.600, -74.100);
+        int e = graph.nearestNode(4.700, -74.000);
+        double[] km = new double[1];
+        double[] minutes = new double[1];
+        graph.newSearch().oneToMany(a, new int[] {e}, km, minutes);
+        assertTrue(Double.isNaN(km[0]));
+        assertTrue(Double.isNaN(minutes[0]));
+    }
+
+    @Test
+    void average_MakesBothDirectionsTheSame() {
+        TriangularDistanceMatrix forward = TriangularDistanceMatrix.empty(3);
+        TriangularDistanceMatrix backward = TriangularDistanceMatrix.empty(3);
+        forward.set(0, 2, 4);
+        backward.set(2, 0, 2);
+        TriangularDistanceMatrix average = TriangularDistanceMatrix.average(forward, backward);
+        assertEquals(3, average.distance(0, 2), 1e-6);
+        assertEquals(3, average.distance(2, 0), 1e-6);
+    }
+
+    private static RoadGraph read() throws Exception {
+        return OsmGraphReader.read(new ByteArrayInputStream(OSM.strip().getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,112 @@
+package com.scgm.routes.solver;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class SavingsSolverTest {
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void solve_VisitsEveryNodeOnceWithinCapacity() {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 50; trial++) {
+            int size = 2 + random.nextInt(120);
+            DistanceMatrix matrix = randomMatrix(random, size);
+            double[] demand = randomDemand(random, size);
+            double capacity = 0.5 + random.nextDouble() * 3;
+
+            List<int[]> routes = SavingsSolver.solve(matrix, 0, nodes(size), demand, capacity);
+            assertFeasible(routes, size, demand, capacity);
+
+            double before = totalLength(matrix, routes);
+            InterRouteSearch.relocate(matrix, 0, routes, demand, capacity, System.nanoTime() + ONE_SECOND);
+            assertFeasible(routes, size, demand, capacity);
+            assertTrue(totalLength(matrix, routes) <= before + 1e-9);
+        }
+    }
+
+    @Test
+    void solve_MergesEverythingWhenCapacityIsUnbounded() {
+        Random random = new Random(7);
+        int size = 30;
+        List<int[]> routes = SavingsSolver.solve(randomMatrix(random, size), 0, nodes(size),
+            randomDemand(random, size), Double.MAX_VALUE);
+        assertEquals(1, routes.size());
+    }
+
+    @Test
+    void solve_RejectsMoreNodesThanTheSavingsFit() {
+        int size = SavingsSolver.MAX_NODES + 2;
+        DistanceMatrix matrix = new DistanceMatrix() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public double distance(int from, int to) {
+                return 1;
+            }
+        };
+        assertThrows(IllegalArgumentException.class,
+            () -> SavingsSolver.solve(matrix, 0, nodes(size), new double[size], Double.MAX_VALUE));
+    }
+
+    @Test
+    void assign_UsesTrucksThatFitTheLoadAndBalancesDistance() {
+        double[] loads = {9, 4, 4, 3};
+        double[] distances = {10, 5, 6, 5};
+        double[] capacities = {5, 10};
+
+        int[] truckOfRoute = TripAssignment.assign(loads, distances, capacities);
+
+        assertArrayEquals(new int[] {1, 0, 0, 1}, truckOfRoute);
+    }
+
+    private static void assertFeasible(List<int[]> routes, int size, double[] demand, double capacity) {
+        int[] visited = routes.stream().flatMapToInt(Arrays::stream).sorted().toArray();
+        assertArrayEquals(nodes(size), visited);
+        for (int[] route : routes) {
+            assertTrue(route.length > 0);
+            assertTrue(route.length == 1 || InterRouteSearch.load(route, demand) <= capacity + 1e-9);
+        }
+    }
+
+    private static double totalLength(DistanceMatrix matrix, List<int[]> routes) {
+        return routes.stream().mapToDouble(route -> InterRouteSearch.routeLength(matrix, 0, route)).sum();
+    }
+
+    private static DistanceMatrix randomMatrix(Random random, int size) {
+        double[] lats = new double[size];
+        double[] lngs = new double[size];
+        for (int i = 0; i < size; i++) {
+            lats[i] = 4.5 + random.nextDouble() * 0.2;
+            lngs[i] = -74.2 + random.nextDouble() * 0.2;
+        }
+        return FullDistanceMatrix.haversine(lats, lngs);
+    }
+
+    private static double[] randomDemand(Random random, int size) {
+        double[] demand = new double[size];
+        for (int i = 1; i < size; i++)
+            demand[i] = random.nextDouble() * 0.5;
+        return demand;
+    }
+
+    private static int[] nodes(int size) {
+        int[] nodes = new int[size - 1];
+        for (int i = 0; i < nodes.length; i++)
+            nodes[i] = i + 1;
+        return nodes;
+    }
+}
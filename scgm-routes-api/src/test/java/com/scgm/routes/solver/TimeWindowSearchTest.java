@@ -0,0 +1,212 @@
+package com.scgm.routes.solver;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TimeWindowSearchTest {
+
+    @Test
+    void then_AgreesWithReplayingTheSchedule() {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 500; trial++) {
+            int stops = 1 + random.nextInt(8);
+            FullDistanceMatrix minutes = randomMatrix(random, stops, 20);
+            TimeWindows windows = randomWindows(random, stops, 1);
+            int[] tour = randomTour(random, stops);
+
+            TimeSegment joined = windows.depot(0);
+            for (int p = 1; p < tour.length; p++)
+                joined = joined.then(p == tour.length - 1 ? windows.depot(0) : windows.node(tour[p]), minutes);
+            assertEquals(replay(minutes, windows, 0, tour), joined.feasible());
+        }
+    }
+
+    @Test
+    void insert_BuildsFeasibleRoutesWithinCapacity() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 50; trial++) {
+            int stops = 1 + random.nextInt(40);
+            int vehicles = 1 + random.nextInt(4);
+            FullDistanceMatrix minutes = randomMatrix(random, stops, 15);
+            TimeWindows windows = randomWindows(random, stops, vehicles);
+            double[] demand = new double[stops + 1];
+            for (int node = 1; node <= stops; node++)
+                demand[node] = random.nextDouble();
+            double[] capacities = new double[vehicles];
+            for (int v = 0; v < vehicles; v++)
+                capacities[v] = 2 + random.nextDouble() * 5;
+
+            List<int[]> routes = TimeWindowSearch.insert(minutes, minutes, windows, demand, capacities, nodes(stops));
+            assertEquals(vehicles, routes.size());
+            boolean[] seen = new boolean[stops + 1];
+            for (int v = 0; v < vehicles; v++) {
+                double load = 0;
+                for (int node : routes.get(v)) {
+                    assertFalse(seen[node]);
+                    seen[node] = true;
+                    load += demand[node];
+                }
+                assertTrue(load <= capacities[v] + 1e-9);
+                assertTrue(replay(minutes, windows, v, withDepot(routes.get(v))));
+            }
+        }
+    }
+
+    @Test
+    void insert_LeavesOutStopsThatCannotBeReachedInTime() {
+        FullDistanceMatrix minutes = new FullDistanceMatrix(3, new double[] {
+            0, 10, 10,
+            10, 0, 10,
+            10, 10, 0});
+        // The shift is 08:00-12:00 and stop 2 closes at 08:05, ten minutes away from the depot
+        TimeWindows windows = new TimeWindows(new double[] {0, 480, 480}, new double[] {1440, 720, 485},
+            new double[] {0, 5, 5}, new double[] {480}, new double[] {720});
+
+        List<int[]> routes = TimeWindowSearch.insert(minutes, minutes, windows, new double[3], new double[] {1},
+            new int[] {1, 2});
+        assertEquals(1, routes.get(0).length);
+        assertEquals(1, routes.get(0)[0]);
+    }
+
+    @Test
+    void insert_IntoPlannedRoutesKeepsTheirOrderAndWindows() {
+        Random random = new Random(13);
+        for (int trial = 0; trial < 50; trial++) {
+            int stops = 2 + random.nextInt(40);
+            int vehicles = 1 + random.nextInt(3);
+            FullDistanceMatrix minutes = randomMatrix(random, stops, 15);
+            TimeWindows windows = randomWindows(random, stops, vehicles);
+            double[] demand = new double[stops + 1];
+            double[] capacities = new double[vehicles];
+            Arrays.fill(capacities, 1);
+            int[] all = nodes(stops);
+            int half = stops / 2;
+            List<int[]> planned = TimeWindowSearch.insert(minutes, minutes, windows, demand, capacities,
+                Arrays.copyOf(all, half));
+
+            List<int[]> routes = TimeWindowSearch.insert(minutes, minutes, windows, demand, capacities, planned,
+                Arrays.copyOfRange(all, half, stops));
+            for (int v = 0; v < vehicles; v++) {
+                int[] kept = Arrays.stream(routes.get(v)).filter(node -> node <= half).toArray();
+                assertArrayEquals(planned.get(v), kept);
+                assertTrue(replay(minutes, windows, v, withDepot(routes.get(v))));
+            }
+        }
+    }
+
+    @Test
+    void improve_ShortensTheTourKeepingItFeasible() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 50; trial++) {
+            int stops = 2 + random.nextInt(30);
+            FullDistanceMatrix minutes = randomMatrix(random, stops, 15);
+            TimeWindows windows = randomWindows(random, stops, 1);
+            List<int[]> routes = TimeWindowSearch.insert(minutes, minutes, windows, new double[stops + 1],
+                new double[] {1}, nodes(stops));
+            int[] tour = withDepot(routes.get(0));
+            double before = LocalSearch.tourLength(minutes, tour);
+
+            TimeWindowSearch.improve(minutes, minutes, windows, 0, tour, Long.MAX_VALUE);
+            assertTrue(LocalSearch.tourLength(minutes, tour) <= before + 1e-9);
+            assertTrue(replay(minutes, windows, 0, tour));
+        }
+    }
+
+    @Test
+    void startTimes_WaitsForTheWindowsToOpen() {
+        FullDistanceMatrix minutes = new FullDistanceMatrix(3, new double[] {
+            0, 10, 20,
+            10, 0, 10,
+            20, 10, 0});
+        TimeWindows windows = new TimeWindows(new double[] {0, 500, 540}, new double[] {1440, 520, 600},
+            new double[] {0, 5, 5}, new double[] {480}, new double[] {720});
+
+        double[] starts = TimeWindowSearch.startTimes(minutes, windows, 0, new int[] {0, 1, 2, 0});
+        assertEquals(510, starts[0], 1e-9);
+        assertEquals(520, starts[1], 1e-9);
+        assertEquals(540, starts[2], 1e-9);
+        assertEquals(565, starts[3], 1e-9);
+    }
+
+    // Leaves the depot at every minute of the shift, waiting at each stop until it opens
+    private static boolean replay(DistanceMatrix minutes, TimeWindows windows, int vehicle, int[] tour) {
+        for (double departure = windows.shiftStart()[vehicle]; departure <= windows.shiftEnd()[vehicle]; departure++) {
+            double time = departure;
+            boolean onTime = true;
+            for (int p = 1; p < tour.length && onTime; p++) {
+                time += windows.service()[tour[p - 1]] + minutes.distance(tour[p - 1], tour[p]);
+                if (p == tour.length - 1) {
+                    onTime = time <= windows.shiftEnd()[vehicle] + 1e-6;
+                } else {
+                    time = Math.max(time, windows.earliest()[tour[p]]);
+                    onTime = time <= windows.latest()[tour[p]] + 1e-6;
+                }
+            }
+            if (onTime)
+                return true;
+        }
+        return false;
+    }
+
+    // Integer minutes, so leaving at whole minutes is enough for the replay
+    private static FullDistanceMatrix randomMatrix(Random random, int stops, int maxMinutes) {
+        int size = stops + 1;
+        double[] minutes = new double[size * size];
+        for (int from = 0; from < size; from++) {
+            for (int to = from + 1; to < size; to++)
+                minutes[from * size + to] = minutes[to * size + from] = 1 + random.nextInt(maxMinutes);
+        }
+        return new FullDistanceMatrix(size, minutes);
+    }
+
+    private static TimeWindows randomWindows(Random random, int stops, int vehicles) {
+        double[] earliest = new double[stops + 1];
+        double[] latest = new double[stops + 1];
+        double[] service = new double[stops + 1];
+        latest[0] = 1440;
+        for (int node = 1; node <= stops; node++) {
+            earliest[node] = 360 + random.nextInt(360);
+            latest[node] = earliest[node] + random.nextInt(120);
+            service[node] = random.nextInt(10);
+        }
+        double[] shiftStart = new double[vehicles];
+        double[] shiftEnd = new double[vehicles];
+        for (int v = 0; v < vehicles; v++) {
+            shiftStart[v] = 300 + random.nextInt(120);
+            shiftEnd[v] = shiftStart[v] + 240 + random.nextInt(480);
+        }
+        return new TimeWindows(earliest, latest, service, shiftStart, shiftEnd);
+    }
+
+    private static int[] randomTour(Random random, int stops) {
+        int[] tour = withDepot(nodes(stops));
+        for (int i = stops; i > 1; i--) {
+            int j = 1 + random.nextInt(i);
+            int swap = tour[i];
+            tour[i] = tour[j];
+            tour[j] = swap;
+        }
+        return tour;
+    }
+
+    private static int[] nodes(int stops) {
+        int[] nodes = new int[stops];
+        for (int i = 0; i < stops; i++)
+            nodes[i] = i + 1;
+        return nodes;
+    }
+
+    private static int[] withDepot(int[] route) {
+        int[] tour = new int[route.length + 2];
+        System.arraycopy(route, 0, tour, 1, route.length);
+        return tour;
+    }
+}